@@ -1,17 +1,40 @@
 package com.social.media;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@Slf4j
 @SpringBootApplication
+@EnableScheduling
 public class MediaApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(MediaApplication.class, args);
 	}
 
+	// Requests run on Tomcat's platform-thread pool by default. Start with --spring.profiles.active=virtual-threads
+	// to serve them on virtual threads (see application-virtual-threads.properties); that needs a Java 21+ runtime,
+	// on older ones Spring Boot silently keeps the platform threads, so say which mode we ended up in.
+	@Bean
+	public ApplicationListener<ApplicationReadyEvent> threadingModeReporter(Environment environment) {
+		return event -> {
+			boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+			boolean supported = Runtime.version().feature() >= 21;
+			if (requested && !supported) {
+				log.warn("Virtual threads requested but running on Java {}, requests are served on platform threads", Runtime.version().feature());
+			} else {
+				log.info("Requests are served on {} threads", requested ? "virtual" : "platform");
+			}
+		};
+	}
+
 
 }
 
@@ -0,0 +1,190 @@
+package com.social.media.config;
+
+import com.social.media.dto.ImportResult;
+import com.social.media.repositories.CounterRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+// Synthetic load generator: builds a users/groups/posts graph of any size (see SeedProperties)
+// and writes it with plain JDBC batch inserts, one transaction per chunk of users.
+// The next chunk is generated on the common fork-join pool while the current one is being written.
+@Slf4j
+@Component
+public class DataGenerator {
+
+    // Has to match allocationSize of the entities' @SequenceGenerator, see IdBlock
+    static final int ALLOCATION_SIZE = 50;
+    private static final int JDBC_BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CounterRepository counterRepository;
+
+    // postAges in milliseconds before the seeding
+    private record UserSpec(long[] postAges, int[] groups) {
+    }
+
+    public ImportResult generate(SeedProperties properties) {
+        long start = System.nanoTime();
+        ZipfSampler groupSampler = properties.getGroups() > 0 ? new ZipfSampler(properties.getGroups(), properties.getGroupSizeExponent()) : null;
+        ZipfSampler postSampler = properties.getMaxPostsPerUser() > 0 ? new ZipfSampler(properties.getMaxPostsPerUser(), properties.getPostsExponent()) : null;
+        int memberships = Math.min(properties.getMembershipsPerUser(), properties.getGroups());
+
+        long[] groupIds = transactionTemplate.execute(status -> insertGroups(properties.getGroups()));
+        Instant seededAt = Instant.now();
+        long rows = groupIds.length;
+
+        IdBlock userIds = new IdBlock("social_user_seq");
+        IdBlock profileIds = new IdBlock("social_profile_seq");
+        IdBlock postIds = new IdBlock("post_seq");
+
+        int users = properties.getUsers();
+        int chunkSize = properties.getChunkSize();
+        CompletableFuture<List<UserSpec>> next = buildChunk(0, Math.min(chunkSize, users), properties, groupSampler, postSampler, memberships);
+        for (int from = 0; from < users; from += chunkSize) {
+            List<UserSpec> chunk = next.join();
+            int nextFrom = from + chunkSize;
+            if (nextFrom < users) {
+                next = buildChunk(nextFrom, Math.min(nextFrom + chunkSize, users), properties, groupSampler, postSampler, memberships);
+            }
+            rows += transactionTemplate.execute(status -> writeChunk(chunk, groupIds, userIds, profileIds, postIds, seededAt));
+        }
+
+        // Rows were written behind Hibernate's back
+        entityManagerFactory.getCache().evictAll();
+
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        double rowsPerSecond = rows * 1_000_000_000d / elapsedNanos;
+        log.info("Generated {} users and {} groups, {} rows in {} ms ({} rows/s)",
+                users, groupIds.length, rows, elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+        return new ImportResult(users, rows, elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+
+    private CompletableFuture<List<UserSpec>> buildChunk(int from, int to, SeedProperties properties,
+                                                         ZipfSampler groupSampler, ZipfSampler postSampler, int memberships) {
+        return CompletableFuture.supplyAsync(() -> IntStream.range(from, to)
+                .parallel()
+                .mapToObj(index -> buildUser(index, properties.getRandomSeed(), groupSampler, postSampler, memberships,
+                        properties.getPostsPeriod().toMillis()))
+                .toList());
+    }
+
+    // Every user gets its own random stream derived from its index, so the data set doesn't depend on thread scheduling
+    private static UserSpec buildUser(int index, long seed, ZipfSampler groupSampler, ZipfSampler postSampler, int memberships,
+                                      long postsPeriodMillis) {
+        // Seeds one apart. Not index * 0x9E3779B97F4A7C15L: that is SplittableRandom's own step, which made
+        // every user's stream the previous user's shifted by one value (neighbours shared post times and groups)
+        SplittableRandom random = new SplittableRandom(seed + index);
+        int posts = postSampler == null ? 0 : postSampler.sample(random);
+        long[] postAges = new long[posts];
+        for (int p = 0; p < posts; p++) {
+            postAges[p] = postsPeriodMillis > 0 ? random.nextLong(postsPeriodMillis) : 0;
+        }
+        int[] groups = new int[memberships];
+        int picked = 0;
+        while (picked < memberships) {
+            int group = groupSampler.sample(random) - 1;
+            boolean duplicate = false;
+            for (int i = 0; i < picked && !duplicate; i++) {
+                duplicate = groups[i] == group;
+            }
+            if (!duplicate) {
+                groups[picked++] = group;
+            }
+        }
+        return new UserSpec(postAges, groups);
+    }
+
+    private long[] insertGroups(int count) {
+        IdBlock ids = new IdBlock("social_group_seq");
+        long[] groupIds = new long[count];
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            groupIds[i] = ids.next();
+            rows.add(new Object[]{groupIds[i]});
+        }
+        batchUpdate("insert into social_group (id) values (?)", rows);
+        return groupIds;
+    }
+
+    // The chunk's member_count changes go in as delta rows, like every other membership writer's (CounterRepository):
+    // counts are exact at every commit, and a fold running meanwhile (async seeding) is never overwritten
+    private long writeChunk(List<UserSpec> chunk, long[] groupIds, IdBlock userIds, IdBlock profileIds, IdBlock postIds,
+                            Instant seededAt) {
+        List<Object[]> users = new ArrayList<>(chunk.size());
+        List<Object[]> profiles = new ArrayList<>(chunk.size());
+        List<Object[]> posts = new ArrayList<>();
+        List<Object[]> memberships = new ArrayList<>();
+        Map<Long, Integer> newMembers = new HashMap<>();
+        for (UserSpec spec : chunk) {
+            long userId = userIds.next();
+            users.add(new Object[]{userId, spec.postAges().length, spec.groups().length});
+            profiles.add(new Object[]{profileIds.next(), "generated user " + userId, userId});
+            for (long age : spec.postAges()) {
+                posts.add(new Object[]{postIds.next(), userId, OffsetDateTime.ofInstant(seededAt.minusMillis(age), ZoneOffset.UTC)});
+            }
+            for (int group : spec.groups()) {
+                memberships.add(new Object[]{userId, groupIds[group]});
+                newMembers.merge(groupIds[group], 1, Integer::sum);
+            }
+        }
+        batchUpdate("insert into social_user (id, post_count, group_count) values (?, ?, ?)", users);
+        batchUpdate("insert into social_profile (id, description, social_user) values (?, ?, ?)", profiles);
+        batchUpdate("insert into post (id, user_id, created_at) values (?, ?, ?)", posts);
+        batchUpdate("insert into user_group (user_id, group_id) values (?, ?)", memberships);
+        counterRepository.addToMemberCounts(newMembers);
+        return users.size() + profiles.size() + posts.size() + memberships.size();
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += JDBC_BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + JDBC_BATCH_SIZE, rows.size())));
+        }
+    }
+
+    // Takes ids from the same sequences Hibernate uses, so generated rows never collide with entities saved later.
+    // With the pooled optimizer every "next value" v reserves the ids (v - 50, v]. The first two values of a
+    // fresh sequence (1 and 51) are skipped, Hibernate uses them for its initial block.
+    private class IdBlock {
+        private final String sequence;
+        private long next = 1;
+        private long high = 0;
+
+        IdBlock(String sequence) {
+            this.sequence = sequence;
+        }
+
+        long next() {
+            if (next > high) {
+                do {
+                    high = jdbcTemplate.queryForObject("select next value for " + sequence, Long.class);
+                } while (high <= ALLOCATION_SIZE + 1);
+                next = high - ALLOCATION_SIZE + 1;
+            }
+            return next++;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.social.media.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// social.feed.* in application.properties: the home feed of FeedService
+@Data
+@ConfigurationProperties(prefix = "social.feed")
+public class FeedProperties {
+
+    // Groups with more members (social_group.member_count) don't feed their members, sharing a huge
+    // group says little about a user and would pull the posts of a large part of all users into every feed
+    private long maxGroupSize = 1_000;
+
+    // Only posts younger than this make it into a feed. Bounds the feed query to the co-members' recent posts,
+    // read as ranges of idx_post_user_created_at, instead of every post they ever wrote.
+    private Duration window = Duration.ofDays(7);
+
+    // Feeds kept in memory (LRU), 0 = no cache
+    private int cacheSize = 10_000;
+
+    // New posts are not pushed into cached feeds, a feed is at most this old
+    private Duration cacheTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,24 @@
+package com.social.media.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// social.ingest.* in application.properties: the write-behind buffer of PostIngestService
+@Data
+@ConfigurationProperties(prefix = "social.ingest")
+public class IngestProperties {
+
+    // Posts waiting to be written, a full buffer rejects new posts with 503
+    private int capacity = 10_000;
+
+    // A batch is written when it has this many posts...
+    private int batchSize = 500;
+
+    // ...or when its first post has waited this long
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    // How long a request may wait for room in a full buffer before it is rejected
+    private Duration offerTimeout = Duration.ofMillis(10);
+}
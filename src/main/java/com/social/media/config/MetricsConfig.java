@@ -0,0 +1,43 @@
+package com.social.media.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+// Per-request SQL statement counts. Service timers come from @Timed (management.observations.annotations.enabled),
+// endpoint timers from http.server.requests and the hibernate.* meters from hibernate-micrometer.
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Static, like the post-processor that needs it before the other beans
+    @Bean
+    public static SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    // Counts on the DataSource JPA and JdbcTemplate share: Boot's pool, or ReadReplicaConfig's routing proxy, both named
+    // dataSource. The pools underneath the routing proxy are left alone so nothing is counted twice.
+    @Bean
+    public static BeanPostProcessor sqlStatementCountingDataSource(SqlStatementCounter sqlStatementCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && "dataSource".equals(beanName) ? sqlStatementCounter.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlStatementsInterceptor(sqlStatementCounter(), meterRegistry));
+    }
+}
@@ -0,0 +1,59 @@
+package com.social.media.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Read replica, opt-in: with social.replica.jdbc-url set, @Transactional(readOnly = true) work reads from a second
+// pool (social.replica.* are its Hikari settings: jdbc-url, username, password, pool-name, maximum-pool-size, ...)
+// and the primary spring.datasource is left to writes. Without it Boot's single data source is used as before.
+// The replica lags behind the primary: reads that must see the caller's own writes belong in the read-write
+// transaction, and entities or query results read from the replica before it caught up can sit in the
+// second-level and query caches until the next write to their table or their ttl (ehcache.xml).
+@Configuration
+@ConditionalOnProperty("social.replica.jdbc-url")
+public class ReadReplicaConfig {
+
+    // spring.datasource.* and spring.datasource.hikari.*, built the way Boot builds it. Flyway migrates this one.
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("social.replica")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    // What JPA, JdbcTemplate and the repositories use. JpaTransactionManager binds the connection when the transaction
+    // begins, before the read-only flag is set, so the proxy only takes a real one when the first statement runs.
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+
+    // Hibernate keeps a session's connection until the session closes by default, which with open-in-view is the end
+    // of the request. Released after every transaction instead, a read-only and a read-write transaction in one
+    // request each get a connection from their own pool.
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandlingCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
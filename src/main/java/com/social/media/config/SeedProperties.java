@@ -0,0 +1,45 @@
+package com.social.media.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// social.seed.* in application.properties, the defaults give the small demo data set.
+// Example of a production-sized data set:
+//   --social.seed.users=1000000 --social.seed.groups=20000 --social.seed.memberships-per-user=5 --social.seed.max-posts-per-user=200
+@Data
+@ConfigurationProperties(prefix = "social.seed")
+public class SeedProperties {
+
+    private boolean enabled = true;
+
+    // Seed on a background thread instead of before the application is ready (fast-start profile).
+    // Requests are served meanwhile and see a partial data set, the membership index is only built once it's done
+    // (recommendations and the membership set operations answer 503 until then).
+    private boolean async = false;
+
+    private int users = 3;
+
+    private int groups = 2;
+
+    // Distinct groups every user joins. Groups are picked with a Zipf distribution,
+    // so group sizes follow a power law: a few huge groups and a long tail of small ones.
+    private int membershipsPerUser = 2;
+
+    private double groupSizeExponent = 1.0;
+
+    // Posts per user are Zipfian in 1..maxPostsPerUser (most users post little, a few post a lot), 0 = no posts
+    private int maxPostsPerUser = 1;
+
+    private double postsExponent = 1.0;
+
+    // Posts are spread evenly over this period before the seeding
+    private Duration postsPeriod = Duration.ofDays(30);
+
+    // Users generated and written per transaction
+    private int chunkSize = 10_000;
+
+    // Same seed, same data set
+    private long randomSeed = 42;
+}
@@ -0,0 +1,98 @@
+package com.social.media.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Counts the SQL statements executed on the current thread, between start() and stop(). Counted on the JDBC
+// connections of the wrapped DataSource, so Hibernate's statements and JdbcTemplate's (feed, memberships,
+// counters, ingest, bulk deletes) are all seen. A batch is one execution, one round trip, however many rows.
+// Hibernate's own statistics are global, this gives the number per request (see SqlStatementsInterceptor).
+public class SqlStatementCounter {
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    public void start() {
+        COUNT.set(new long[1]);
+    }
+
+    // Statements since start(), -1 when nothing was started on this thread
+    public long stop() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? -1 : count[0];
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return new CountingDataSource(dataSource);
+    }
+
+    private static void count() {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // equals and hashCode by identity of the proxy, like the target's own
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        InvocationHandler identity = (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> handler.invoke(proxy, method, args);
+        };
+        return type.cast(Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(), new Class<?>[]{type}, identity));
+    }
+
+    // Statement, PreparedStatement and CallableStatement alike: every execute* method is one execution
+    private static Statement countingStatement(Class<? extends Statement> type, Statement statement) {
+        return proxy(type, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                count();
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return countingStatement(method.getReturnType().asSubclass(Statement.class), statement);
+            }
+            return result;
+        });
+    }
+
+    private static final class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return countingConnection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return countingConnection(super.getConnection(username, password));
+        }
+    }
+}
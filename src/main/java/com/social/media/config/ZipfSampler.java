@@ -0,0 +1,29 @@
+package com.social.media.config;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Draws ranks 1..n with P(k) proportional to 1 / k^exponent.
+// The cumulative distribution is computed once, a draw is a binary search over it.
+class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        // Not found returns (-(insertion point) - 1), the insertion point is the rank we want
+        return (index >= 0 ? index : -index - 1) + 1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.social.media.controller;
+
+import com.social.media.dto.FeedItem;
+import com.social.media.service.FeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class FeedController {
+
+    @Autowired
+    private FeedService feedService;
+
+    // Newest posts of the users sharing a group with the user, newest first
+    @GetMapping("social/users/{userId}/feed")
+    public ResponseEntity<List<FeedItem>> getFeed(@PathVariable Long userId,
+                                                  @RequestParam(defaultValue = "" + FeedService.DEFAULT_FEED_SIZE) int limit){
+        return new ResponseEntity<>(feedService.getFeed(userId, limit), HttpStatus.OK);
+    }
+}
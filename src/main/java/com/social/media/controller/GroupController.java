@@ -0,0 +1,50 @@
+package com.social.media.controller;
+
+import com.social.media.dto.CursorPage;
+import com.social.media.dto.MembershipChange;
+import com.social.media.models.SocialGroup;
+import com.social.media.dto.UserSummary;
+import com.social.media.service.GroupService;
+import com.social.media.service.SocialService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+public class GroupController {
+
+    @Autowired
+    private GroupService groupService;
+
+    @PostMapping("social/groups")
+    public ResponseEntity<SocialGroup> createGroup(){
+        return new ResponseEntity<>(groupService.createGroup(), HttpStatus.CREATED);
+    }
+
+    // Keyset paged: GET social/groups/{groupId}/members?after=<nextCursor>&limit=50
+    @GetMapping("social/groups/{groupId}/members")
+    public ResponseEntity<CursorPage<UserSummary>> getMembers(@PathVariable Long groupId,
+                                                              @RequestParam(required = false) Long after,
+                                                              @RequestParam(defaultValue = "" + SocialService.DEFAULT_PAGE_SIZE) int limit){
+        return new ResponseEntity<>(groupService.getMembers(groupId, after, limit), HttpStatus.OK);
+    }
+
+    @GetMapping("social/groups/{groupId}/members/count")
+    public ResponseEntity<Long> countMembers(@PathVariable Long groupId){
+        return new ResponseEntity<>(groupService.countMembers(groupId), HttpStatus.OK);
+    }
+
+    // Body: [userId, userId, ...], up to GroupService.MAX_MEMBERSHIP_BATCH ids
+    @PostMapping("social/groups/{groupId}/members")
+    public ResponseEntity<MembershipChange> addMembers(@PathVariable Long groupId, @RequestBody List<Long> userIds){
+        return new ResponseEntity<>(groupService.addMembers(groupId, userIds), HttpStatus.OK);
+    }
+
+    @DeleteMapping("social/groups/{groupId}/members")
+    public ResponseEntity<MembershipChange> removeMembers(@PathVariable Long groupId, @RequestBody List<Long> userIds){
+        return new ResponseEntity<>(groupService.removeMembers(groupId, userIds), HttpStatus.OK);
+    }
+}
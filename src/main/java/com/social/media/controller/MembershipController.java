@@ -0,0 +1,40 @@
+package com.social.media.controller;
+
+import com.social.media.dto.IdSet;
+import com.social.media.service.MembershipService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class MembershipController {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    // GET social/users/shared-groups?userIds=1,2
+    @GetMapping("social/users/shared-groups")
+    public ResponseEntity<IdSet> getSharedGroups(@RequestParam List<Long> userIds,
+                                                 @RequestParam(defaultValue = "" + MembershipService.DEFAULT_RESULT_LIMIT) int limit){
+        return new ResponseEntity<>(membershipService.getSharedGroups(userIds, limit), HttpStatus.OK);
+    }
+
+    // Intersection: GET social/groups/shared-members?groupIds=1,2
+    @GetMapping("social/groups/shared-members")
+    public ResponseEntity<IdSet> getSharedMembers(@RequestParam List<Long> groupIds,
+                                                  @RequestParam(defaultValue = "" + MembershipService.DEFAULT_RESULT_LIMIT) int limit){
+        return new ResponseEntity<>(membershipService.getSharedMembers(groupIds, limit), HttpStatus.OK);
+    }
+
+    // Union: GET social/groups/all-members?groupIds=1,2
+    @GetMapping("social/groups/all-members")
+    public ResponseEntity<IdSet> getAllMembers(@RequestParam List<Long> groupIds,
+                                               @RequestParam(defaultValue = "" + MembershipService.DEFAULT_RESULT_LIMIT) int limit){
+        return new ResponseEntity<>(membershipService.getAllMembers(groupIds, limit), HttpStatus.OK);
+    }
+}
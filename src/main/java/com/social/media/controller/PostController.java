@@ -0,0 +1,64 @@
+package com.social.media.controller;
+
+import com.social.media.dto.CursorPage;
+import com.social.media.models.Post;
+import com.social.media.service.AckMode;
+import com.social.media.service.PostIngestService;
+import com.social.media.service.PostService;
+import com.social.media.service.SocialService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+public class PostController {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostIngestService postIngestService;
+
+    // Keyset paged: GET social/users/{userId}/posts?after=<nextCursor>&limit=50
+    @GetMapping("social/users/{userId}/posts")
+    public ResponseEntity<CursorPage<Post>> getPosts(@PathVariable Long userId,
+                                                     @RequestParam(required = false) Long after,
+                                                     @RequestParam(defaultValue = "" + SocialService.DEFAULT_PAGE_SIZE) int limit){
+        return new ResponseEntity<>(postService.getPosts(userId, after, limit), HttpStatus.OK);
+    }
+
+    @PostMapping("social/users/{userId}/posts")
+    public ResponseEntity<Post> createPost(@PathVariable Long userId){
+        return new ResponseEntity<>(postService.createPost(userId), HttpStatus.CREATED);
+    }
+
+    // Write-behind: ?ack=ACCEPTED answers 202 once the post is buffered, ?ack=DURABLE answers 201 with the id
+    // once its batch committed. 503 when the buffer is full.
+    @PostMapping("social/users/{userId}/posts/ingest")
+    public CompletableFuture<ResponseEntity<Post>> ingestPost(@PathVariable Long userId,
+                                                              @RequestParam(defaultValue = "ACCEPTED") AckMode ack){
+        CompletableFuture<Long> written = postIngestService.enqueue(userId);
+        if (ack == AckMode.ACCEPTED) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.ACCEPTED));
+        }
+        return written.thenApply(id -> {
+            Post post = new Post();
+            post.setId(id);
+            return new ResponseEntity<>(post, HttpStatus.CREATED);
+        });
+    }
+
+    @DeleteMapping("social/users/{userId}/posts/{postId}")
+    public ResponseEntity<String> deletePost(@PathVariable Long userId, @PathVariable Long postId){
+        postService.deletePost(userId, postId);
+        return new ResponseEntity<>("Deleted Successfully", HttpStatus.OK);
+    }
+
+    @GetMapping("social/users/{userId}/posts/count")
+    public ResponseEntity<Long> countPosts(@PathVariable Long userId){
+        return new ResponseEntity<>(postService.countPosts(userId), HttpStatus.OK);
+    }
+}
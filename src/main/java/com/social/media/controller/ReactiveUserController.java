@@ -0,0 +1,26 @@
+package com.social.media.controller;
+
+import com.social.media.dto.UserSummary;
+import com.social.media.service.SocialService;
+import com.social.media.service.UserStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+public class ReactiveUserController {
+
+    @Autowired
+    private UserStreamService userStreamService;
+
+    // All users as server-sent events (Accept: text/event-stream) or NDJSON (Accept: application/x-ndjson).
+    // Spring MVC writes each element as it is emitted and only requests the next one after the write,
+    // so the read side follows the client's pace.
+    @GetMapping(value = "social/users/stream", produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<UserSummary> streamUsers(@RequestParam(defaultValue = "" + SocialService.DEFAULT_PAGE_SIZE) int pageSize){
+        return userStreamService.streamUserSummaries(pageSize);
+    }
+}
@@ -0,0 +1,27 @@
+package com.social.media.controller;
+
+import com.social.media.dto.Recommendation;
+import com.social.media.service.RecommendationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class RecommendationController {
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    // Users sharing the most groups with the user, best first
+    @GetMapping("social/users/{userId}/recommendations")
+    public ResponseEntity<List<Recommendation>> getRecommendations(@PathVariable Long userId,
+                                                                   @RequestParam(defaultValue = "" + RecommendationService.DEFAULT_RECOMMENDATIONS) int limit){
+        return new ResponseEntity<>(recommendationService.getRecommendations(userId, limit), HttpStatus.OK);
+    }
+}
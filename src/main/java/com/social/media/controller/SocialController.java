@@ -1,11 +1,17 @@
 package com.social.media.controller;
 
+import com.social.media.dto.CursorPage;
+import com.social.media.dto.DeleteResult;
+import com.social.media.dto.ImportResult;
+import com.social.media.dto.UserStats;
+import com.social.media.dto.UserSummary;
 import com.social.media.models.SocialUser;
 import com.social.media.service.SocialService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,18 +22,47 @@ public class SocialController {
     @Autowired
     private SocialService socialService;
 
-    @GetMapping("social/users")
-    public ResponseEntity<List<SocialUser>> getUsers(){
-        return new ResponseEntity<>(socialService.getAllUsers(), HttpStatus.OK);
+    // Keyset paged: GET social/users?after=<nextCursor>&limit=50. Only id, profile description, post count and
+    // group ids, read through projections. Full users with their posts are in the export.
+    // social/users/summary is the older name of the same listing.
+    @GetMapping({"social/users", "social/users/summary"})
+    public ResponseEntity<CursorPage<UserSummary>> getUserSummaries(@RequestParam(required = false) Long after,
+                                                                    @RequestParam(defaultValue = "" + SocialService.DEFAULT_PAGE_SIZE) int limit){
+        return new ResponseEntity<>(socialService.getUserSummaries(after, limit), HttpStatus.OK);
+    }
+
+    // Post and group count from the user's counter columns, a single-row read
+    @GetMapping("social/users/{userId}/stats")
+    public ResponseEntity<UserStats> getUserStats(@PathVariable Long userId){
+        return new ResponseEntity<>(socialService.getUserStats(userId), HttpStatus.OK);
+    }
+
+    // Newline-delimited JSON of every user, written while the rows are read (constant memory)
+    @GetMapping(value = "social/users/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportUsers(){
+        return new ResponseEntity<>(out -> socialService.exportUsers(out), HttpStatus.OK);
     }
 
     @PostMapping("social/users")
     public ResponseEntity<SocialUser> saveUser(@RequestBody SocialUser user){
         return new ResponseEntity<>(socialService.saveUser(user), HttpStatus.CREATED);
     }
+
+    // Bulk onboarding, written with JDBC batch inserts in chunked transactions
+    @PostMapping("social/users/bulk")
+    public ResponseEntity<ImportResult> importUsers(@RequestBody List<SocialUser> users){
+        return new ResponseEntity<>(socialService.importUsers(users), HttpStatus.CREATED);
+    }
+
     @DeleteMapping("social/users/{id}")
     public ResponseEntity<String> deleteUser(@PathVariable Long id){
         socialService.deleteUser(id);
         return new ResponseEntity<>("Deleted Successfully", HttpStatus.CREATED);
     }
+
+    // Purge of many accounts at once, body: [userId, userId, ...] up to SocialService.MAX_DELETE_BATCH ids
+    @DeleteMapping("social/users")
+    public ResponseEntity<DeleteResult> deleteUsers(@RequestBody List<Long> ids){
+        return new ResponseEntity<>(socialService.deleteUsers(ids), HttpStatus.OK);
+    }
 }
@@ -0,0 +1,47 @@
+package com.social.media.controller;
+
+import com.social.media.dto.CacheRegionStats;
+import com.social.media.dto.HibernateStats;
+import com.social.media.dto.IngestStats;
+import com.social.media.service.PostIngestService;
+import com.social.media.service.StatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class StatsController {
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private PostIngestService postIngestService;
+
+    @GetMapping("social/stats/cache")
+    public ResponseEntity<List<CacheRegionStats>> getCacheStats(){
+        return new ResponseEntity<>(statsService.getRegionStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("social/stats/hibernate")
+    public ResponseEntity<HibernateStats> getHibernateStats(){
+        return new ResponseEntity<>(statsService.getHibernateStats(), HttpStatus.OK);
+    }
+
+    // Starts a fresh measurement window, e.g. before replaying one request
+    @DeleteMapping("social/stats/hibernate")
+    public ResponseEntity<String> resetHibernateStats(){
+        statsService.resetHibernateStats();
+        return new ResponseEntity<>("Statistics reset", HttpStatus.OK);
+    }
+
+    @GetMapping("social/stats/ingest")
+    public ResponseEntity<IngestStats> getIngestStats(){
+        return new ResponseEntity<>(postIngestService.getStats(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,24 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStats {
+
+    private String region;
+
+    private long hits;
+
+    private long misses;
+
+    private long puts;
+
+    private double hitRatio;
+
+    // -1 when the cache provider doesn't report it
+    private long elementsInMemory;
+}
@@ -0,0 +1,34 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+
+    // Id of the last item on this page, pass it back as "after" to get the next page.
+    // null means there is nothing left to read.
+    private Long nextCursor;
+
+    // rows is the result of a keyset query run with limit + 1, the extra row only tells that there is a next page
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> id) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, limit);
+        return new CursorPage<>(page, id.apply(page.get(limit - 1)));
+    }
+}
+
+//Keyset (a.k.a. seek) pagination
+//Instead of "OFFSET 100000 LIMIT 50", which makes the database walk and throw away 100000 rows,
+//we ask for "WHERE id > :lastSeenId ORDER BY id LIMIT 50". With the primary key index this is
+//a range scan that costs the same on page 1 and on page 10000.
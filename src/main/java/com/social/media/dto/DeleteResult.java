@@ -0,0 +1,20 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Rows removed per table
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeleteResult {
+
+    private int users;
+
+    private int profiles;
+
+    private int posts;
+
+    private int memberships;
+}
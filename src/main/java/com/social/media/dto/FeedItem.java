@@ -0,0 +1,20 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One post of a home feed and its author
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedItem {
+
+    private Long postId;
+
+    private Long userId;
+
+    private Instant createdAt;
+}
@@ -0,0 +1,40 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Totals since startup (or the last reset), from Hibernate statistics
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HibernateStats {
+
+    private long statementsPrepared;
+
+    private long queriesExecuted;
+
+    private long slowestQueryMillis;
+
+    private String slowestQuery;
+
+    private long entityLoads;
+
+    private long entityFetches;
+
+    private long collectionLoads;
+
+    private long collectionFetches;
+
+    private long secondLevelCacheHits;
+
+    private long secondLevelCacheMisses;
+
+    private long queryCacheHits;
+
+    private long queryCacheMisses;
+
+    private long transactions;
+
+    private long flushes;
+}
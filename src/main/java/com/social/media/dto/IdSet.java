@@ -0,0 +1,19 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Result of a membership set query: ids in ascending order, at most the requested limit of them
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdSet {
+
+    private long[] ids;
+
+    // Size of the whole set, more than ids.length when truncated
+    private int total;
+
+    private boolean truncated;
+}
@@ -0,0 +1,20 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResult {
+
+    private int users;
+
+    // users + profiles + posts + user_group rows
+    private long rows;
+
+    private long elapsedMillis;
+
+    private double rowsPerSecond;
+}
@@ -0,0 +1,33 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Totals of the post ingest buffer since startup
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestStats {
+
+    private int queued;
+
+    private int capacity;
+
+    private long accepted;
+
+    // Turned away because the buffer was full
+    private long rejected;
+
+    private long written;
+
+    // Written in a batch that failed, e.g. for an unknown user
+    private long failed;
+
+    private long batches;
+
+    private double averageBatchSize;
+
+    // Posts written per second between the first accepted post and the last commit
+    private double postsPerSecond;
+}
@@ -0,0 +1,19 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MembershipChange {
+
+    private Long groupId;
+
+    // User ids in the request
+    private int requested;
+
+    // Rows actually added or removed, already-members / non-members are skipped
+    private int changed;
+}
@@ -0,0 +1,8 @@
+package com.social.media.dto;
+
+public interface MembershipRow {
+
+    Long getUserId();
+
+    Long getGroupId();
+}
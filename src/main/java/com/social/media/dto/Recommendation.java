@@ -0,0 +1,16 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Recommendation {
+
+    private long userId;
+
+    // Number of groups shared with the user the recommendation is for
+    private int sharedGroups;
+}
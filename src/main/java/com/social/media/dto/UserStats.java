@@ -0,0 +1,17 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStats {
+
+    private Long userId;
+
+    private long postCount;
+
+    private long groupCount;
+}
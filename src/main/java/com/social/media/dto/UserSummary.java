@@ -0,0 +1,23 @@
+package com.social.media.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Read model of a user: only the columns the listing needs, built from projections and never from entities,
+// so serializing it can't trigger lazy loading.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+
+    private Long id;
+
+    private String description;
+
+    private long postCount;
+
+    private List<Long> groupIds;
+}
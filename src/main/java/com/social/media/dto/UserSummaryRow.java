@@ -0,0 +1,11 @@
+package com.social.media.dto;
+
+// Interface projection: Spring Data backs it with the query's tuple, no entity is created or managed.
+public interface UserSummaryRow {
+
+    Long getId();
+
+    String getDescription();
+
+    Long getPostCount();
+}
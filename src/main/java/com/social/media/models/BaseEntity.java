@@ -0,0 +1,35 @@
+package com.social.media.models;
+
+import org.hibernate.Hibernate;
+
+// Entity equality by primary key only. Lombok's @Data compared and hashed every field, so adding a user to a
+// HashSet hashed all of its posts (initializing the lazy collection) and recursed through back-references
+// (SocialProfile.user, Post.socialUser) until the stack overflowed.
+// Two entities are equal when they are of the same entity class and have the same id, a transient entity
+// (id still null) is only equal to itself and hashes by identity until then.
+// Don't put a transient entity into a hash-based collection and persist it afterwards: its hash changes
+// when the id is assigned. Sets here only ever hold loaded or id-referenced entities (e.g. SocialUser.groups).
+// A per-class constant hash would avoid that, but puts every entity of a class into one HashMap bucket and
+// makes loading a set of n users O(n^2) (see EntityHashingBenchmark).
+// Final, so a lazy proxy runs these methods itself: getId() and getClassLazy() don't initialize it.
+public abstract class BaseEntity {
+
+    public abstract Long getId();
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BaseEntity other) || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(other)) {
+            return false;
+        }
+        return getId() != null && getId().equals(other.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        Long id = getId();
+        return id != null ? id.hashCode() : System.identityHashCode(this);
+    }
+}
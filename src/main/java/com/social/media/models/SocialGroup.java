@@ -1,28 +1,55 @@
 package com.social.media.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.util.HashSet;
 import java.util.Set;
 
 
 @Entity
-@Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Getter
+@Setter
+@ToString(onlyExplicitlyIncluded = true)
 @NoArgsConstructor
 @AllArgsConstructor
-public class SocialGroup {
+public class SocialGroup extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "social_group_seq")
+    @SequenceGenerator(name = "social_group_seq", sequenceName = "social_group_seq", allocationSize = 50)
+    @ToString.Include
     private Long id;
 
+    // Inverse side: Hibernate doesn't evict this cached collection when SocialUser.groups changes,
+    // SocialService does that after its writes.
+    // Joins and leaves never bump the group's version: members of the same group are added and removed
+    // in parallel, each change locking only its own user_group row and user row.
     @ManyToMany(mappedBy = "groups")
-    @EqualsAndHashCode.Exclude
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @OptimisticLock(excluded = true)
     @JsonIgnore
     private Set<SocialUser> socialUsers = new HashSet<>();
+
+    // Size of socialUsers, maintained like SocialUser.postCount: social_group.member_count plus the
+    // changes still pending in group_member_count_delta (CounterRepository)
+    @Formula("member_count + coalesce((select sum(d.delta) from group_member_count_delta d where d.group_id = id), 0)")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ToString.Include
+    private long memberCount;
+
+    @Version
+    private Long version;
 }
@@ -2,16 +2,26 @@ package com.social.media.models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Getter
+@Setter
+@ToString(onlyExplicitlyIncluded = true)
 @NoArgsConstructor
 @AllArgsConstructor
-public class SocialProfile {
+public class SocialProfile extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "social_profile_seq")
+    @SequenceGenerator(name = "social_profile_seq", sequenceName = "social_profile_seq", allocationSize = 50)
+    @ToString.Include
     private Long id;
 
     @OneToOne()
@@ -19,8 +29,13 @@ public class SocialProfile {
     @JsonIgnore
     private SocialUser user;
 
+    @ToString.Include
     private String description;
 
+    // Optimistic lock, see SocialUser.version
+    @Version
+    private Long version;
+
     public void setSocialUser(SocialUser socialUser){
         this.user = socialUser;
         if(socialUser.getSocialProfile() != this){
@@ -1,11 +1,17 @@
 package com.social.media.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -13,25 +19,39 @@ import java.util.List;
 import java.util.Set;
 
 @Entity(name="SocialUser") // user is a Keyword in H2-database, will throw error while creating a table with User...
-@Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Getter
+@Setter
+@ToString(onlyExplicitlyIncluded = true)
 @NoArgsConstructor
 @AllArgsConstructor
-public class SocialUser {
+public class SocialUser extends BaseEntity {
+    // Sequence with a pooled allocation of 50: Hibernate hands out ids from memory and only goes
+    // to the database once per 50 rows, and unlike IDENTITY it can batch the INSERT statements.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "social_user_seq")
+    @SequenceGenerator(name = "social_user_seq", sequenceName = "social_user_seq", allocationSize = 50)
+    @ToString.Include
     private Long id;
 
     @OneToOne(mappedBy = "user", cascade = {CascadeType.PERSIST,CascadeType.MERGE,CascadeType.REMOVE} ) // Mapped by will have the Field name that is used in the Owning Table/Entity.
 //    @JoinColumn(name="social_profile_id")
     private SocialProfile socialProfile;
 
+    // Lazy collections of up to 100 users are initialized with one "where user_id in (...)" query
+    // instead of one query per user (the N+1 problem) when a page of users is serialized.
     @OneToMany(mappedBy = "socialUser", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @BatchSize(size = 100)
     private List<Post> posts = new ArrayList<>();
 
 //    @ManyToMany(fetch = FetchType.EAGER)
     @ManyToMany(fetch = FetchType.LAZY)
 //    @ManyToMany
-    @EqualsAndHashCode.Exclude
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    // The primary key is (group_id, user_id), so lookups by group are covered; user_id has its own index
+    // (db/migration/V1__create_schema.sql)
     @JoinTable(
             name = "user_group",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -39,6 +59,28 @@ public class SocialUser {
     )
     private Set<SocialGroup> groups = new HashSet<>();
 
+    // Counters of the two collections, so "N posts, M groups" is read from this row without initializing them.
+    // Set on insert, then only changed by CounterRepository's atomic "count = count + ?" updates
+    // (updatable = false, a merge of a stale entity can't overwrite them) and checked by CounterReconciler.
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ToString.Include
+    private long postCount;
+
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ToString.Include
+    private long groupCount;
+
+    // Optimistic lock: a save carrying an older version than the row fails with 409 instead of
+    // overwriting the changes made since it was read. Bumped by Hibernate when the user's own columns
+    // or its groups change, and by CounterRepository.addToGroupCount when GroupService changes them.
+    // The counters above are not part of it.
+    @Version
+    private Long version;
+
     // All explanation down below.
     public void setSocialProfile(SocialProfile socialProfile){
         socialProfile.setUser(this);
@@ -0,0 +1,119 @@
+package com.social.media.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// The aggregate counters on social_user (post_count, group_count) and social_group (member_count).
+// Every change is a single "count = count + ?" statement, atomic under concurrent writers without
+// reading the row first. Plain SQL, so Hibernate doesn't invalidate the whole entity region as it
+// does for bulk JPQL updates: callers run it in the transaction of the change they count and evict
+// the changed users/groups from the second-level cache after the commit.
+// member_count is the exception: a group's row is shared by all its members, and updating it would
+// serialize their joins and leaves on its lock until each commit. Its changes are inserted into
+// group_member_count_delta instead, readers add MEMBER_COUNT's pending deltas and foldMemberCounts
+// moves them into the row now and then.
+@Repository
+public class CounterRepository {
+
+    // A group's member count, for the native queries of social_group g (see SocialGroup.memberCount)
+    public static final String MEMBER_COUNT = "(g.member_count + coalesce((select sum(d.delta) " +
+            "from group_member_count_delta d where d.group_id = g.id), 0))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public void addToPostCount(Long userId, int delta) {
+        jdbcTemplate.update("update social_user set post_count = post_count + ? where id = ?", delta, userId);
+    }
+
+    // One batch for all users, e.g. the authors of a batch of ingested posts
+    public void addToPostCounts(Map<Long, Integer> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((userId, delta) -> rows.add(new Object[]{delta, userId}));
+        jdbcTemplate.batchUpdate("update social_user set post_count = post_count + ? where id = ?", rows);
+    }
+
+    // The users' groups changed, so their version moves on too (SocialUser.version): a save still
+    // carrying the old group set fails instead of undoing the change
+    public void addToGroupCount(Collection<Long> userIds, int delta) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        namedParameterJdbcTemplate.update("update social_user set group_count = group_count + :delta, version = version + 1 " +
+                        "where id in (:userIds)",
+                Map.of("delta", delta, "userIds", userIds));
+    }
+
+    public void addToMemberCount(Long groupId, int delta) {
+        jdbcTemplate.update("insert into group_member_count_delta (group_id, delta) values (?, ?)", groupId, delta);
+    }
+
+    // One batch for all groups, e.g. the groups of a chunk of imported or deleted users
+    public void addToMemberCounts(Map<Long, Integer> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((groupId, delta) -> rows.add(new Object[]{groupId, delta}));
+        jdbcTemplate.batchUpdate("insert into group_member_count_delta (group_id, delta) values (?, ?)", rows);
+    }
+
+    // Moves up to limit of the oldest pending deltas into social_group.member_count, returns how many.
+    // Deletes exactly the rows it read before adding them up: a concurrent fold of the same rows waits for
+    // our commit, then deletes fewer rows than it read and rolls back instead of counting them twice.
+    public int foldMemberCounts(int limit) {
+        List<Object[]> pending = jdbcTemplate.query("select id, group_id, delta from group_member_count_delta order by id limit ?",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, limit);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(pending.size());
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (Object[] row : pending) {
+            ids.add((Long) row[0]);
+            deltas.merge((Long) row[1], (Long) row[2], Long::sum);
+        }
+        int deleted = namedParameterJdbcTemplate.update("delete from group_member_count_delta where id in (:ids)", Map.of("ids", ids));
+        if (deleted != ids.size()) {
+            throw new ConcurrencyFailureException("Member count deltas were folded concurrently");
+        }
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        // Ascending group ids, so concurrent folds lock the groups in the same order
+        deltas.forEach((groupId, delta) -> rows.add(new Object[]{delta, groupId}));
+        jdbcTemplate.batchUpdate("update social_group set member_count = member_count + ? where id = ?", rows);
+        return ids.size();
+    }
+
+    // Sets the user's counters from the rows, for a save that replaced posts and groups wholesale
+    public void recountUser(Long userId) {
+        jdbcTemplate.update("update social_user u set " +
+                "post_count = (select count(*) from post p where p.user_id = u.id), " +
+                "group_count = (select count(*) from user_group ug where ug.user_id = u.id) " +
+                "where u.id = ?", userId);
+    }
+
+    // Reconciliation: fixes the rows whose counters drifted from the tables, returns how many
+    public int reconcileUsers() {
+        return jdbcTemplate.update("update social_user u set " +
+                "post_count = (select count(*) from post p where p.user_id = u.id), " +
+                "group_count = (select count(*) from user_group ug where ug.user_id = u.id) " +
+                "where u.post_count <> (select count(*) from post p where p.user_id = u.id) " +
+                "or u.group_count <> (select count(*) from user_group ug where ug.user_id = u.id)");
+    }
+
+    // The pending deltas stay, the row gets whatever makes the sum right
+    public int reconcileGroups() {
+        return jdbcTemplate.update("update social_group g set " +
+                "member_count = g.member_count + (select count(*) from user_group ug where ug.group_id = g.id) - " + MEMBER_COUNT + " " +
+                "where " + MEMBER_COUNT + " <> (select count(*) from user_group ug where ug.group_id = g.id)");
+    }
+}
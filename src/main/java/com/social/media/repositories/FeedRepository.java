@@ -0,0 +1,43 @@
+package com.social.media.repositories;
+
+import com.social.media.dto.FeedItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+// The home feed as one query on user_group and post, instead of walking
+// SocialUser.groups -> SocialGroup.socialUsers -> SocialUser.posts entity by entity.
+@Repository
+public class FeedRepository {
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Newest posts since the given time of the users sharing a group of at most maxGroupSize members with the user,
+    // newest first. The co-members come from the user_group indexes, their posts from one idx_post_user_created_at
+    // range per co-member (user_id = ?, created_at >= since). The index can't give the top N across users, so every
+    // post in the window is read and sorted: the window, not the limit, bounds the cost.
+    @Transactional(readOnly = true)
+    public List<FeedItem> findFeed(Long userId, long maxGroupSize, Instant since, int limit) {
+        return namedParameterJdbcTemplate.query("select p.id, p.user_id, p.created_at from post p " +
+                        "where p.user_id in (" +
+                        "select member.user_id from user_group mine " +
+                        "join social_group g on g.id = mine.group_id " +
+                        "join user_group member on member.group_id = mine.group_id " +
+                        "where mine.user_id = :userId and " + CounterRepository.MEMBER_COUNT + " <= :maxGroupSize " +
+                        "and member.user_id <> :userId) " +
+                        "and p.created_at >= :since " +
+                        "order by p.created_at desc, p.id desc " +
+                        "limit :limit",
+                Map.of("userId", userId, "maxGroupSize", maxGroupSize, "since", since.atOffset(ZoneOffset.UTC), "limit", limit),
+                (resultSet, row) -> new FeedItem(resultSet.getLong(1), resultSet.getLong(2),
+                        resultSet.getObject(3, OffsetDateTime.class).toInstant()));
+    }
+}
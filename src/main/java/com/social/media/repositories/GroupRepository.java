@@ -1,7 +1,24 @@
 package com.social.media.repositories;
 
+import com.social.media.dto.UserSummaryRow;
 import com.social.media.models.SocialGroup;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface GroupRepository extends JpaRepository<SocialGroup, Long> {
+
+    // Keyset page of a group's members, reads user_group through its (group_id, user_id) primary key
+    // instead of initializing the whole SocialGroup.socialUsers set.
+    @Query("select u.id as id, p.description as description, " +
+            "u.postCount as postCount " +
+            "from SocialUser u left join u.socialProfile p join u.groups g " +
+            "where g.id = :groupId and u.id > :after order by u.id")
+    List<UserSummaryRow> findMemberSummaries(Long groupId, Long after, Limit limit);
+
+    @Query("select g.memberCount from SocialGroup g where g.id = :groupId")
+    Optional<Long> findMemberCount(Long groupId);
 }
@@ -0,0 +1,74 @@
+package com.social.media.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Works on the user_group join table directly, so changing memberships never loads
+// SocialUser.groups or SocialGroup.socialUsers. Cost is O(changed rows), not O(group size).
+// Callers run it inside a transaction and evict the affected second-level cache entries afterwards.
+@Repository
+public class MembershipRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Existing memberships are skipped, returns the users that were added
+    public List<Long> addMembers(Long groupId, Collection<Long> userIds) {
+        List<Object[]> rows = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            rows.add(new Object[]{userId, groupId, userId, groupId});
+        }
+        return batchUpdate("insert into user_group (user_id, group_id) select ?, ? " +
+                "where not exists (select 1 from user_group where user_id = ? and group_id = ?)", rows);
+    }
+
+    // Returns the users that were removed
+    public List<Long> removeMembers(Long groupId, Collection<Long> userIds) {
+        List<Object[]> rows = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            rows.add(new Object[]{userId, groupId});
+        }
+        return batchUpdate("delete from user_group where user_id = ? and group_id = ?", rows);
+    }
+
+    // Group id -> number of the users' memberships in it
+    public Map<Long, Integer> countMembershipsByGroup(Collection<Long> userIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        namedParameterJdbcTemplate.query("select group_id, count(*) from user_group where user_id in (:userIds) group by group_id",
+                Map.of("userIds", userIds), resultSet -> {
+                    counts.put(resultSet.getLong(1), resultSet.getInt(2));
+                });
+        return counts;
+    }
+
+    public int deleteByUserIds(Collection<Long> userIds) {
+        return namedParameterJdbcTemplate.update("delete from user_group where user_id in (:userIds)", Map.of("userIds", userIds));
+    }
+
+    // The first parameter of every row is the user id, returns the user ids of the rows that changed something
+    private List<Long> batchUpdate(String sql, List<Object[]> rows) {
+        List<Long> changed = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            int[] counts = jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    changed.add((Long) rows.get(from + i)[0]);
+                }
+            }
+        }
+        return changed;
+    }
+}
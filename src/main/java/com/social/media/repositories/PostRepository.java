@@ -1,7 +1,24 @@
 package com.social.media.repositories;
 
 import com.social.media.models.Post;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
+
+    // Keyset page of a user's posts: "where user_id = :userId and id > :id order by id limit :limit"
+    List<Post> findBySocialUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Limit limit);
+
+    @Modifying
+    @Query("delete from Post p where p.id = :postId and p.socialUser.id = :userId")
+    int deleteByIdAndUserId(Long postId, Long userId);
+
+    @Modifying
+    @Query("delete from Post p where p.socialUser.id in :userIds")
+    int deleteByUserIds(Collection<Long> userIds);
 }
@@ -3,6 +3,18 @@ package com.social.media.repositories;
 
 import com.social.media.models.SocialProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.Optional;
 
 public interface SocialProfileRepository extends JpaRepository<SocialProfile, Long> {
+
+    @Modifying
+    @Query("delete from SocialProfile p where p.user.id in :userIds")
+    int deleteByUserIds(Collection<Long> userIds);
+
+    @Query("select p.version from SocialProfile p where p.id = :id")
+    Optional<Long> findVersion(Long id);
 }
@@ -1,8 +1,55 @@
 package com.social.media.repositories;
 
-import com.social.media.models.Post;
+import com.social.media.dto.MembershipRow;
+import com.social.media.dto.UserStats;
+import com.social.media.dto.UserSummaryRow;
 import com.social.media.models.SocialUser;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface SocialUserRepository extends JpaRepository<SocialUser, Long> {
+
+    // Keyset page of summaries: id, profile description and post count, three columns instead of whole entities
+    @Query("select u.id as id, p.description as description, u.postCount as postCount " +
+            "from SocialUser u left join u.socialProfile p where u.id > :after order by u.id")
+    List<UserSummaryRow> findSummaries(Long after, Limit limit);
+
+    @Query("select u.id as userId, g.id as groupId from SocialUser u join u.groups g where u.id in :userIds")
+    List<MembershipRow> findMemberships(Collection<Long> userIds);
+
+    // The counters only, a single row read by primary key
+    @Query("select new com.social.media.dto.UserStats(u.id, u.postCount, u.groupCount) from SocialUser u where u.id = :userId")
+    Optional<UserStats> findStats(Long userId);
+
+    @Query("select u.postCount from SocialUser u where u.id = :userId")
+    Optional<Long> findPostCount(Long userId);
+
+    @Query("select u.version from SocialUser u where u.id = :userId")
+    Optional<Long> findVersion(Long userId);
+
+    @Query("select g.id from SocialUser u join u.groups g where u.id = :userId")
+    List<Long> findGroupIds(Long userId);
+
+    // Which of the ids exist, one query for a whole batch instead of existsById per id
+    @Query("select u.id from SocialUser u where u.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Set-based delete, the caller removes posts, profile and user_group rows first
+    @Modifying
+    @Query("delete from SocialUser u where u.id in :ids")
+    int deleteByIds(Collection<Long> ids);
+
+    // Keyset page of whole users with their profiles, for the export. Read-only: no snapshots for dirty checking.
+    @Query("select u from SocialUser u left join fetch u.socialProfile where u.id > :after order by u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<SocialUser> findPage(Long after, Limit limit);
 }
@@ -0,0 +1,9 @@
+package com.social.media.service;
+
+// When the ingest API answers a post
+public enum AckMode {
+    // As soon as the post is in the buffer (202). Fastest, but posts still in the buffer are lost if the process dies.
+    ACCEPTED,
+    // After the batch holding the post committed (201 with the post's id)
+    DURABLE
+}
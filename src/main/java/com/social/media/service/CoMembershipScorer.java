@@ -0,0 +1,142 @@
+package com.social.media.service;
+
+import com.social.media.dto.Recommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Scores every user by the number of groups they share with one user and keeps the best k.
+// The score of a candidate is how often its id occurs in the member arrays of the user's groups,
+// so the work is the sum of those groups' sizes, not the product.
+// The id range is split in two at the median of the largest array until a range holds at most
+// LEAF_SIZE ids, the ranges are scored in parallel on the fork-join pool and their top k merged.
+public class CoMembershipScorer {
+
+    static final int LEAF_SIZE = 16_384;
+
+    // Best first: more shared groups, then the lower (older) user id
+    private static final Comparator<Recommendation> BEST_FIRST = Comparator
+            .comparingInt(Recommendation::getSharedGroups).reversed()
+            .thenComparingLong(Recommendation::getUserId);
+
+    private final ForkJoinPool pool;
+
+    public CoMembershipScorer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Groups above maxGroupSize are left out: they cost the most and sharing them says the least
+    public List<Recommendation> topK(MembershipIndex index, long userId, int k, int maxGroupSize) {
+        List<long[]> members = new ArrayList<>();
+        for (long groupId : index.groupsOf(userId)) {
+            long[] groupMembers = index.membersOf(groupId);
+            if (groupMembers.length > 1 && groupMembers.length <= maxGroupSize) {
+                members.add(groupMembers);
+            }
+        }
+        if (members.isEmpty() || k < 1) {
+            return List.of();
+        }
+        PriorityQueue<Recommendation> best = pool.invoke(
+                new ScoreTask(members.toArray(long[][]::new), Long.MIN_VALUE, Long.MAX_VALUE, userId, k));
+        List<Recommendation> result = new ArrayList<>(best);
+        result.sort(BEST_FIRST);
+        return result;
+    }
+
+    private static final class ScoreTask extends RecursiveTask<PriorityQueue<Recommendation>> {
+
+        private final long[][] members;
+        // Ids in [from, to)
+        private final long from;
+        private final long to;
+        private final long userId;
+        private final int k;
+
+        ScoreTask(long[][] members, long from, long to, long userId, int k) {
+            this.members = members;
+            this.from = from;
+            this.to = to;
+            this.userId = userId;
+            this.k = k;
+        }
+
+        @Override
+        protected PriorityQueue<Recommendation> compute() {
+            int[] starts = new int[members.length];
+            int[] ends = new int[members.length];
+            int total = 0;
+            int largest = 0;
+            for (int i = 0; i < members.length; i++) {
+                starts[i] = lowerBound(members[i], from);
+                ends[i] = lowerBound(members[i], to);
+                total += ends[i] - starts[i];
+                if (ends[i] - starts[i] > ends[largest] - starts[largest]) {
+                    largest = i;
+                }
+            }
+            if (total <= LEAF_SIZE) {
+                return score(starts, ends, total);
+            }
+            long pivot = members[largest][(starts[largest] + ends[largest]) >>> 1];
+            if (pivot == from) {
+                return score(starts, ends, total);
+            }
+            ScoreTask right = new ScoreTask(members, pivot, to, userId, k);
+            right.fork();
+            PriorityQueue<Recommendation> best = new ScoreTask(members, from, pivot, userId, k).compute();
+            for (Recommendation recommendation : right.join()) {
+                offer(best, recommendation);
+            }
+            return best;
+        }
+
+        // Every candidate occurs once per shared group: sort the range's ids and count the runs
+        private PriorityQueue<Recommendation> score(int[] starts, int[] ends, int total) {
+            long[] ids = new long[total];
+            int size = 0;
+            for (int i = 0; i < members.length; i++) {
+                int length = ends[i] - starts[i];
+                System.arraycopy(members[i], starts[i], ids, size, length);
+                size += length;
+            }
+            Arrays.sort(ids);
+            PriorityQueue<Recommendation> best = new PriorityQueue<>(k + 1, BEST_FIRST.reversed());
+            for (int i = 0; i < ids.length; ) {
+                int run = i;
+                while (run < ids.length && ids[run] == ids[i]) {
+                    run++;
+                }
+                if (ids[i] != userId) {
+                    offer(best, new Recommendation(ids[i], run - i));
+                }
+                i = run;
+            }
+            return best;
+        }
+
+        // The head of the queue is the worst of the current top k
+        private void offer(PriorityQueue<Recommendation> best, Recommendation candidate) {
+            if (best.size() < k) {
+                best.add(candidate);
+            } else if (BEST_FIRST.compare(candidate, best.peek()) < 0) {
+                best.poll();
+                best.add(candidate);
+            }
+        }
+    }
+
+    private static int lowerBound(long[] values, long value) {
+        int found = Arrays.binarySearch(values, value);
+        if (found < 0) {
+            return -found - 1;
+        }
+        // Arrays are distinct, the match is the first occurrence
+        return found;
+    }
+}
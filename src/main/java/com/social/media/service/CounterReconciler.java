@@ -0,0 +1,66 @@
+package com.social.media.service;
+
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialUser;
+import com.social.media.repositories.CounterRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Safety net for the maintained counters: recounts posts and memberships from the tables and fixes the rows
+// that drifted, e.g. after rows were changed with SQL outside the services. A drift is logged and counted
+// (social.counters.drift), it means some write path doesn't update the counters.
+// Also folds the pending member_count deltas (CounterRepository) into social_group, so the readers sum few rows.
+// Never lazy (fast-start profile): @Scheduled only takes effect on a created bean.
+@Slf4j
+@Component
+@Lazy(false)
+public class CounterReconciler {
+
+    static final int FOLD_BATCH = 10_000;
+
+    @Autowired
+    private CounterRepository counterRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Scheduled(initialDelayString = "${social.counters.reconcile-interval}", fixedDelayString = "${social.counters.reconcile-interval}")
+    public int reconcile() {
+        int users = transactionTemplate.execute(status -> counterRepository.reconcileUsers());
+        int groups = transactionTemplate.execute(status -> counterRepository.reconcileGroups());
+        if (users + groups > 0) {
+            log.warn("Reconciled counters of {} users and {} groups", users, groups);
+            Counter.builder("social.counters.drift").tag("table", "social_user").register(meterRegistry).increment(users);
+            Counter.builder("social.counters.drift").tag("table", "social_group").register(meterRegistry).increment(groups);
+            // Which rows changed isn't known, drop the regions
+            entityManagerFactory.getCache().evict(SocialUser.class);
+            entityManagerFactory.getCache().evict(SocialGroup.class);
+        }
+        return users + groups;
+    }
+
+    // A fold doesn't change any count, so there is nothing to evict
+    @Scheduled(fixedDelayString = "${social.counters.fold-interval}")
+    public int foldMemberCounts() {
+        int folded = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> counterRepository.foldMemberCounts(FOLD_BATCH));
+            folded += batch;
+        } while (batch == FOLD_BATCH);
+        return folded;
+    }
+}
@@ -0,0 +1,84 @@
+package com.social.media.service;
+
+import com.social.media.config.FeedProperties;
+import com.social.media.dto.FeedItem;
+import com.social.media.repositories.FeedRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Home feed: the newest posts of the last social.feed.window by everyone sharing a group with the user
+// (fan-out on read, one query per feed).
+// Feeds are kept in a bounded LRU cache for social.feed.cache-ttl. Membership changes drop the feeds they
+// change right away, new posts show up once the cached feed expired.
+@Timed("social.service")
+@Service
+@EnableConfigurationProperties(FeedProperties.class)
+public class FeedService {
+
+    public static final int DEFAULT_FEED_SIZE = 50;
+    public static final int MAX_FEED_SIZE = 200;
+
+    @Autowired
+    private FeedProperties properties;
+
+    @Autowired
+    private FeedRepository feedRepository;
+
+    @Autowired
+    private MembershipIndex membershipIndex;
+
+    private final Map<Long, CachedFeed> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedFeed> eldest) {
+            return size() > properties.getCacheSize();
+        }
+    };
+
+    // Bumped by every invalidation, a feed computed across one is not cached
+    private long generation;
+
+    public List<FeedItem> getFeed(Long userId, int limit) {
+        if (limit < 1 || limit > MAX_FEED_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_FEED_SIZE);
+        }
+        CachedFeed feed;
+        long computedAt;
+        synchronized (cache) {
+            feed = cache.get(userId);
+            computedAt = generation;
+        }
+        if (feed == null || System.nanoTime() - feed.createdNanos() > properties.getCacheTtl().toNanos()) {
+            // Always the maximum, so any limit can be served from the cache
+            feed = new CachedFeed(feedRepository.findFeed(userId, properties.getMaxGroupSize(),
+                    Instant.now().minus(properties.getWindow()), MAX_FEED_SIZE), System.nanoTime());
+            synchronized (cache) {
+                if (generation == computedAt && properties.getCacheSize() > 0) {
+                    cache.put(userId, feed);
+                }
+            }
+        }
+        return feed.items().subList(0, Math.min(limit, feed.items().size()));
+    }
+
+    // The users who joined or left see other posts now, and so do the other members of the changed groups
+    @EventListener
+    public void onMembershipsChanged(MembershipsChangedEvent event) {
+        synchronized (cache) {
+            generation++;
+            membershipIndex.evictAffected(cache, event);
+        }
+    }
+
+    private record CachedFeed(List<FeedItem> items, long createdNanos) {
+    }
+}
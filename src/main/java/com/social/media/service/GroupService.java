@@ -0,0 +1,142 @@
+package com.social.media.service;
+
+import com.social.media.dto.CursorPage;
+import com.social.media.dto.MembershipChange;
+import com.social.media.dto.UserSummary;
+import com.social.media.dto.UserSummaryRow;
+import com.social.media.models.SocialGroup;
+import com.social.media.repositories.CounterRepository;
+import com.social.media.repositories.GroupRepository;
+import com.social.media.repositories.MembershipRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Timed("social.service")
+@Service
+public class GroupService {
+
+    public static final int MAX_MEMBERSHIP_BATCH = 10_000;
+    static final int MAX_ADD_ATTEMPTS = 3;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private MembershipRepository membershipRepository;
+
+    @Autowired
+    private CounterRepository counterRepository;
+
+    @Autowired
+    private SocialService socialService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private MembershipIndex membershipIndex;
+
+    public SocialGroup createGroup() {
+        return groupRepository.save(new SocialGroup());
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<UserSummary> getMembers(Long groupId, Long after, int limit) {
+        SocialService.checkPageSize(limit);
+        List<UserSummaryRow> members = groupRepository.findMemberSummaries(groupId, after == null ? 0L : after, Limit.of(limit + 1));
+        return CursorPage.of(socialService.toSummaries(members), limit, UserSummary::getId);
+    }
+
+    // The maintained counter, the group's row and its few pending deltas instead of counting user_group
+    @Transactional(readOnly = true)
+    public long countMembers(Long groupId) {
+        return groupRepository.findMemberCount(groupId).orElse(0L);
+    }
+
+    public MembershipChange addMembers(Long groupId, List<Long> userIds) {
+        Set<Long> users = checkMembershipRequest(groupId, userIds);
+        List<Long> added = null;
+        for (int attempt = 1; added == null; attempt++) {
+            try {
+                added = transactionTemplate.execute(status -> {
+                    checkGroupExists(groupId);
+                    List<Long> inserted = membershipRepository.addMembers(groupId, users);
+                    updateCounters(groupId, inserted, 1);
+                    return inserted;
+                });
+            } catch (DuplicateKeyException e) {
+                // A concurrent request inserted one of the memberships between our "not exists" check and our insert.
+                // Once it committed, the retry skips that row like any existing membership.
+                if (attempt == MAX_ADD_ATTEMPTS) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Memberships changed concurrently, try again");
+                }
+            } catch (DataIntegrityViolationException e) {
+                // user_group.user_id foreign key
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User not found");
+            }
+        }
+        evictMemberships(groupId, users, added);
+        membershipIndex.refreshUsers(added);
+        return new MembershipChange(groupId, userIds.size(), added.size());
+    }
+
+    public MembershipChange removeMembers(Long groupId, List<Long> userIds) {
+        Set<Long> users = checkMembershipRequest(groupId, userIds);
+        List<Long> removed = transactionTemplate.execute(status -> {
+            checkGroupExists(groupId);
+            List<Long> deleted = membershipRepository.removeMembers(groupId, users);
+            updateCounters(groupId, deleted, -1);
+            return deleted;
+        });
+        evictMemberships(groupId, users, removed);
+        membershipIndex.refreshUsers(removed);
+        return new MembershipChange(groupId, userIds.size(), removed.size());
+    }
+
+    // Only the rows that actually changed count, so adding an existing member twice doesn't drift the counters
+    private void updateCounters(Long groupId, List<Long> changedUserIds, int sign) {
+        if (changedUserIds.isEmpty()) {
+            return;
+        }
+        counterRepository.addToMemberCount(groupId, sign * changedUserIds.size());
+        counterRepository.addToGroupCount(changedUserIds, sign);
+    }
+
+    private Set<Long> checkMembershipRequest(Long groupId, List<Long> userIds) {
+        if (userIds.size() > MAX_MEMBERSHIP_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_MEMBERSHIP_BATCH + " users per request");
+        }
+        return new LinkedHashSet<>(userIds);
+    }
+
+    // In the write transaction, a read-only lookup could go to a replica that hasn't seen a new group yet
+    private void checkGroupExists(Long groupId) {
+        if (!groupRepository.existsById(groupId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Group not found");
+        }
+    }
+
+    private void evictMemberships(Long groupId, Set<Long> userIds, List<Long> changedUserIds) {
+        secondLevelCache.evictGroupMembers(List.of(groupId));
+        secondLevelCache.evictUserGroups(userIds);
+        if (!changedUserIds.isEmpty()) {
+            secondLevelCache.evictGroups(List.of(groupId));
+            secondLevelCache.evictUsers(changedUserIds);
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.social.media.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Both directions of user_group in memory: user id -> sorted long[] of group ids and group id -> sorted long[]
+// of user ids, about 8 bytes per membership and direction instead of a hash set of entities.
+// Intersections and unions are merges of sorted arrays, no database round trip.
+// Arrays are never modified, a change replaces the array of the key (copy on write), so readers need no lock.
+// Writers lock the users they change (striped locks) and update both directions under them, so concurrent
+// changes of one user can't leave the user's groups and the groups' members disagreeing.
+// Built from the table once the application is ready (after seeding, or once the async seeder is done, see
+// deferBuild) and kept in sync by the services that change memberships: after their transaction committed they
+// call refreshUsers, which applies the rows as committed rather than the change as requested (see there).
+// Rows written behind the services' back (SQL console, another instance) are not seen until rebuild().
+// Every change is published as a MembershipsChangedEvent for the caches built on top of it.
+@Slf4j
+@Component
+public class MembershipIndex {
+
+    static final long[] EMPTY = new long[0];
+
+    private static final int FETCH_SIZE = 10_000;
+
+    // Ids per "in (...)" list of refreshUsers
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+
+    // Power of two
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private volatile Map<Long, long[]> groupsByUser = new ConcurrentHashMap<>();
+
+    private volatile Map<Long, long[]> usersByGroup = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    private volatile boolean buildDeferred;
+
+    // Updates share it, a rebuild holds it exclusively: updates wait for the new maps instead of going into
+    // the old ones that are about to be replaced
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock[] userLocks = new ReentrantLock[LOCK_STRIPES];
+
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (buildDeferred) {
+            log.info("Membership index build deferred until seeding is done");
+            return;
+        }
+        rebuild();
+    }
+
+    // The tables are still being written (async seeding): the index stays not ready, and isn't built when the
+    // application becomes ready, until the writer calls rebuild()
+    public void deferBuild() {
+        buildDeferred = true;
+    }
+
+    // Reads user_group in user order, so every user's groups and every group's users come out sorted.
+    // Updates wait until the new maps are in place and are then applied to them, none is lost: a change
+    // committed during the read is either in the table read or applied after it, applying it twice changes
+    // nothing. Every cache built on the index is invalidated afterwards.
+    public void rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            build();
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        changed(MembershipsChangedEvent.all());
+    }
+
+    private void build() {
+        long start = System.nanoTime();
+        Map<Long, long[]> groups = new ConcurrentHashMap<>();
+        Map<Long, LongBuffer> users = new HashMap<>();
+        LongBuffer current = new LongBuffer();
+        long[] currentUser = {Long.MIN_VALUE};
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("select user_id, group_id from user_group order by user_id, group_id");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            long userId = resultSet.getLong(1);
+            long groupId = resultSet.getLong(2);
+            if (userId != currentUser[0]) {
+                if (current.size > 0) {
+                    groups.put(currentUser[0], current.toArray());
+                }
+                current.size = 0;
+                currentUser[0] = userId;
+            }
+            current.add(groupId);
+            users.computeIfAbsent(groupId, id -> new LongBuffer()).add(userId);
+        });
+        if (current.size > 0) {
+            groups.put(currentUser[0], current.toArray());
+        }
+        Map<Long, long[]> members = new ConcurrentHashMap<>(users.size());
+        users.forEach((groupId, buffer) -> members.put(groupId, buffer.toArray()));
+        groupsByUser = groups;
+        usersByGroup = members;
+        ready = true;
+        log.info("Membership index built: {} users, {} groups in {} ms", groups.size(), members.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Sorted, never modify the returned array
+    public long[] groupsOf(long userId) {
+        return groupsByUser.getOrDefault(userId, EMPTY);
+    }
+
+    // Sorted, never modify the returned array
+    public long[] membersOf(long groupId) {
+        return usersByGroup.getOrDefault(groupId, EMPTY);
+    }
+
+    public int userCount() {
+        return groupsByUser.size();
+    }
+
+    public void addMembers(long groupId, Collection<Long> userIds) {
+        long[] added = toSortedArray(userIds);
+        withUserLocks(added, () -> {
+            usersByGroup.compute(groupId, (id, members) -> emptyToNull(union(members == null ? EMPTY : members, added)));
+            for (long userId : added) {
+                groupsByUser.compute(userId, (id, groups) -> emptyToNull(union(groups == null ? EMPTY : groups, new long[]{groupId})));
+            }
+        });
+        changed(List.of(groupId), userIds);
+    }
+
+    public void removeMembers(long groupId, Collection<Long> userIds) {
+        long[] removed = toSortedArray(userIds);
+        withUserLocks(removed, () -> {
+            usersByGroup.computeIfPresent(groupId, (id, members) -> emptyToNull(difference(members, removed)));
+            for (long userId : removed) {
+                groupsByUser.computeIfPresent(userId, (id, groups) -> emptyToNull(difference(groups, new long[]{groupId})));
+            }
+        });
+        changed(List.of(groupId), userIds);
+    }
+
+    // The user's memberships are now exactly groupIds, e.g. after a save
+    public void setGroups(long userId, Collection<Long> groupIds) {
+        setGroups(Map.of(userId, groupIds));
+    }
+
+    // Every user's memberships are now exactly its groups.
+    // Each changed group's member array is copied once for all users, and one event covers the whole change.
+    public void setGroups(Map<Long, ? extends Collection<Long>> groupIdsByUser) {
+        long[] userIds = toSortedArray(groupIdsByUser.keySet());
+        Change change = new Change();
+        withUserLocks(userIds, () -> applyGroups(userIds, groupIdsByUser, change));
+        change.publish();
+    }
+
+    // Sets the users' memberships to their user_group rows as committed, call it after the transaction that changed
+    // them committed. The rows are read under the users' locks: of two overlapping changes of a user, whichever is
+    // applied last read the table after both committed, so the index ends up as the table whatever order the
+    // commits and the calls came in. Applying the change as requested instead could apply an add and a remove of
+    // the same membership in the opposite order of their commits and keep the wrong one until the next rebuild.
+    // Reads the primary, outside any read-only transaction.
+    public void refreshUsers(Collection<Long> userIds) {
+        long[] ids = toSortedArray(userIds);
+        if (ids.length == 0) {
+            return;
+        }
+        Change change = new Change();
+        withUserLocks(ids, () -> applyGroups(ids, readGroups(ids), change));
+        change.publish();
+    }
+
+    private Map<Long, List<Long>> readGroups(long[] userIds) {
+        Map<Long, List<Long>> groups = new HashMap<>();
+        for (int from = 0; from < userIds.length; from += REFRESH_CHUNK_SIZE) {
+            List<Long> chunk = Arrays.stream(userIds, from, Math.min(from + REFRESH_CHUNK_SIZE, userIds.length)).boxed().toList();
+            chunk.forEach(userId -> groups.put(userId, new ArrayList<>()));
+            namedParameterJdbcTemplate.query("select user_id, group_id from user_group where user_id in (:userIds)",
+                    Map.of("userIds", chunk),
+                    resultSet -> {
+                        groups.get(resultSet.getLong(1)).add(resultSet.getLong(2));
+                    });
+        }
+        return groups;
+    }
+
+    // Under the users' locks. Ascending user ids, so every group's buffer comes out sorted.
+    private void applyGroups(long[] userIds, Map<Long, ? extends Collection<Long>> groupIdsByUser, Change change) {
+        for (long userId : userIds) {
+            long[] current = groupsOf(userId);
+            long[] next = toSortedArray(groupIdsByUser.get(userId));
+            long[] left = difference(current, next);
+            long[] joined = difference(next, current);
+            if (left.length == 0 && joined.length == 0) {
+                continue;
+            }
+            for (long groupId : left) {
+                change.leftBy.computeIfAbsent(groupId, id -> new LongBuffer()).add(userId);
+            }
+            for (long groupId : joined) {
+                change.joinedBy.computeIfAbsent(groupId, id -> new LongBuffer()).add(userId);
+            }
+            if (next.length == 0) {
+                groupsByUser.remove(userId);
+            } else {
+                groupsByUser.put(userId, next);
+            }
+            change.users.add(userId);
+        }
+        change.leftBy.forEach((groupId, users) -> usersByGroup.computeIfPresent(groupId,
+                (id, members) -> emptyToNull(difference(members, users.toArray()))));
+        change.joinedBy.forEach((groupId, users) -> usersByGroup.compute(groupId,
+                (id, members) -> emptyToNull(union(members == null ? EMPTY : members, users.toArray()))));
+    }
+
+    public void removeUsers(Collection<Long> userIds) {
+        Map<Long, List<Long>> none = new HashMap<>();
+        for (Long userId : userIds) {
+            none.put(userId, List.of());
+        }
+        setGroups(none);
+    }
+
+    // Drops the cached entries (keyed by user id) a change can make stale: those of the users who joined or left
+    // and of the current members of the changed groups. Walks whichever is smaller, those users or the cache's keys,
+    // never both. The caller holds the cache's lock.
+    void evictAffected(Map<Long, ?> cache, MembershipsChangedEvent event) {
+        if (event.isAll()) {
+            cache.clear();
+            return;
+        }
+        event.getUserIds().forEach(cache::remove);
+        if (cache.isEmpty()) {
+            return;
+        }
+        long[][] members = event.getGroupIds().stream().map(this::membersOf).toArray(long[][]::new);
+        long affected = Arrays.stream(members).mapToLong(ids -> ids.length).sum();
+        if (affected <= cache.size()) {
+            for (long[] ids : members) {
+                for (long userId : ids) {
+                    cache.remove(userId);
+                }
+            }
+        } else {
+            cache.keySet().removeIf(userId -> Arrays.stream(members).anyMatch(ids -> Arrays.binarySearch(ids, userId) >= 0));
+        }
+    }
+
+    // Locks the stripes of the users in ascending order, so two updates never wait on each other crosswise
+    private void withUserLocks(long[] userIds, Runnable update) {
+        boolean[] stripes = new boolean[LOCK_STRIPES];
+        for (long userId : userIds) {
+            stripes[stripeOf(userId)] = true;
+        }
+        int locked = 0;
+        rebuildLock.readLock().lock();
+        try {
+            for (; locked < LOCK_STRIPES; locked++) {
+                if (stripes[locked]) {
+                    userLocks[locked].lock();
+                }
+            }
+            update.run();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                if (stripes[i]) {
+                    userLocks[i].unlock();
+                }
+            }
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private static int stripeOf(long userId) {
+        return Long.hashCode(userId) & (LOCK_STRIPES - 1);
+    }
+
+    private void changed(Collection<Long> groupIds, Collection<Long> userIds) {
+        changed(new MembershipsChangedEvent(groupIds, userIds));
+    }
+
+    private void changed(MembershipsChangedEvent event) {
+        // No publisher outside a Spring context
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    static long[] intersect(long[] a, long[] b) {
+        if (a.length > b.length) {
+            long[] swap = a;
+            a = b;
+            b = swap;
+        }
+        long[] result = new long[a.length];
+        int size = 0;
+        // A small set against a big one: binary search the big one instead of walking it
+        if (a.length * 16 < b.length) {
+            int from = 0;
+            for (long value : a) {
+                int found = Arrays.binarySearch(b, from, b.length, value);
+                if (found >= 0) {
+                    result[size++] = value;
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            return Arrays.copyOf(result, size);
+        }
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    static long[] union(long[] a, long[] b) {
+        long[] result = new long[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            long value;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                value = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                value = b[j++];
+            } else {
+                value = a[i++];
+                j++;
+            }
+            result[size++] = value;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    // Values of a that are not in b
+    static long[] difference(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        int size = 0;
+        for (long value : a) {
+            if (Arrays.binarySearch(b, value) < 0) {
+                result[size++] = value;
+            }
+        }
+        return size == a.length ? a : Arrays.copyOf(result, size);
+    }
+
+    static long[] toSortedArray(Collection<Long> ids) {
+        return ids.stream().filter(Objects::nonNull).mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+
+    private static long[] emptyToNull(long[] ids) {
+        return ids.length == 0 ? null : ids;
+    }
+
+    // What applyGroups changed, published as one event
+    private final class Change {
+
+        private final Map<Long, LongBuffer> joinedBy = new HashMap<>();
+
+        private final Map<Long, LongBuffer> leftBy = new HashMap<>();
+
+        private final List<Long> users = new ArrayList<>();
+
+        void publish() {
+            if (users.isEmpty()) {
+                return;
+            }
+            Set<Long> groups = new HashSet<>(leftBy.keySet());
+            groups.addAll(joinedBy.keySet());
+            changed(groups, users);
+        }
+    }
+
+    private static final class LongBuffer {
+
+        private long[] values = new long[4];
+
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.social.media.service;
+
+import com.social.media.dto.IdSet;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongFunction;
+
+// Set queries over memberships, answered from the MembershipIndex instead of the entity collections
+@Timed("social.service")
+@Service
+public class MembershipService {
+
+    public static final int MAX_QUERY_IDS = 100;
+    public static final int DEFAULT_RESULT_LIMIT = 10_000;
+
+    @Autowired
+    private MembershipIndex membershipIndex;
+
+    // Groups every one of the users is a member of
+    public IdSet getSharedGroups(List<Long> userIds, int limit) {
+        return intersectAll(userIds, membershipIndex::groupsOf, limit);
+    }
+
+    // Users that are members of every one of the groups
+    public IdSet getSharedMembers(List<Long> groupIds, int limit) {
+        return intersectAll(groupIds, membershipIndex::membersOf, limit);
+    }
+
+    // Users that are members of at least one of the groups
+    public IdSet getAllMembers(List<Long> groupIds, int limit) {
+        long[][] sets = lookup(groupIds, membershipIndex::membersOf, limit);
+        long[] result = MembershipIndex.EMPTY;
+        for (long[] set : sets) {
+            result = MembershipIndex.union(result, set);
+        }
+        return truncate(result, limit);
+    }
+
+    private IdSet intersectAll(List<Long> ids, LongFunction<long[]> setOf, int limit) {
+        long[][] sets = lookup(ids, setOf, limit);
+        // Smallest first, the running result can only shrink
+        Arrays.sort(sets, Comparator.comparingInt(set -> set.length));
+        long[] result = sets[0];
+        for (int i = 1; i < sets.length && result.length > 0; i++) {
+            result = MembershipIndex.intersect(result, sets[i]);
+        }
+        return truncate(result, limit);
+    }
+
+    private long[][] lookup(List<Long> ids, LongFunction<long[]> setOf, int limit) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_QUERY_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + MAX_QUERY_IDS + " ids per query");
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        if (!membershipIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Membership index is still loading");
+        }
+        return ids.stream().mapToLong(Long::longValue).distinct().mapToObj(setOf).toArray(long[][]::new);
+    }
+
+    private static IdSet truncate(long[] ids, int limit) {
+        if (ids.length <= limit) {
+            return new IdSet(ids, ids.length, false);
+        }
+        return new IdSet(Arrays.copyOf(ids, limit), ids.length, true);
+    }
+}
@@ -0,0 +1,29 @@
+package com.social.media.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.List;
+
+// Published by MembershipIndex after it applied a change: userIds joined or left groupIds.
+// After a rebuild any membership may have changed: all is set, the ids are empty.
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class MembershipsChangedEvent {
+
+    Collection<Long> groupIds;
+
+    Collection<Long> userIds;
+
+    boolean all;
+
+    public MembershipsChangedEvent(Collection<Long> groupIds, Collection<Long> userIds) {
+        this(groupIds, userIds, false);
+    }
+
+    static MembershipsChangedEvent all() {
+        return new MembershipsChangedEvent(List.of(), List.of(), true);
+    }
+}
@@ -0,0 +1,283 @@
+package com.social.media.service;
+
+import com.social.media.config.IngestProperties;
+import com.social.media.dto.IngestStats;
+import com.social.media.models.Post;
+import com.social.media.models.SocialUser;
+import com.social.media.repositories.CounterRepository;
+import com.social.media.repositories.SocialUserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write-behind post creation: posts go into a bounded buffer and a single writer thread inserts them
+// in batches, one transaction, one JDBC batch and one counter update per batch instead of per post.
+// A batch is written when it has social.ingest.batch-size posts or its oldest post waited flush-interval.
+// A full buffer pushes back: the request waits at most offer-timeout for room, then gets 503.
+// Posts still in the buffer when the process dies are lost, callers that can't lose a post ask for AckMode.DURABLE.
+@Slf4j
+@Service
+@EnableConfigurationProperties(IngestProperties.class)
+public class PostIngestService {
+
+    // How often an idle writer checks for shutdown
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    @Autowired
+    private IngestProperties properties;
+
+    @Autowired
+    private SocialUserRepository socialUserRepository;
+
+    @Autowired
+    private CounterRepository counterRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private BlockingQueue<PendingPost> queue;
+
+    private Thread writer;
+
+    private volatile boolean accepting;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong firstAcceptedNanos = new AtomicLong();
+    private volatile long lastCommitNanos;
+
+    private Timer flushTimer;
+    private Timer latencyTimer;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        Gauge.builder("social.ingest.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        registerCounter("accepted", accepted);
+        registerCounter("rejected", rejected);
+        registerCounter("written", written);
+        registerCounter("failed", failed);
+        flushTimer = Timer.builder("social.ingest.flush").register(meterRegistry);
+        // Enqueue to commit, what a DURABLE caller waits
+        latencyTimer = Timer.builder("social.ingest.latency").publishPercentileHistogram().register(meterRegistry);
+        batchSizes = DistributionSummary.builder("social.ingest.batch.size").register(meterRegistry);
+        accepting = true;
+        writer = new Thread(this::run, "post-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Stops taking posts and writes what is buffered before the connection pool shuts down.
+    // Whatever the writer didn't get to in time is failed, so no DURABLE caller waits for a post that won't come.
+    @PreDestroy
+    void stop() throws InterruptedException {
+        accepting = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+        List<PendingPost> unwritten = new ArrayList<>();
+        queue.drainTo(unwritten);
+        if (!unwritten.isEmpty()) {
+            log.warn("{} buffered posts were not written", unwritten.size());
+            abandon(unwritten);
+        }
+    }
+
+    // Completes with the post's id once its batch committed, or exceptionally if the batch failed
+    public CompletableFuture<Long> enqueue(Long userId) {
+        PendingPost pending = new PendingPost(userId, Instant.now(), System.nanoTime(), new CompletableFuture<>());
+        boolean offered;
+        try {
+            offered = accepting && queue.offer(pending, properties.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            offered = false;
+        }
+        if (!offered) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Post ingest buffer is full, retry later");
+        }
+        // Offered while stop() ran: taken back unless the writer or stop() already has it, they complete it
+        if (!accepting && queue.remove(pending)) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Post ingest is shutting down");
+        }
+        firstAcceptedNanos.compareAndSet(0, pending.enqueuedNanos());
+        accepted.incrementAndGet();
+        return pending.result();
+    }
+
+    public IngestStats getStats() {
+        long batchCount = batches.get();
+        long writtenCount = written.get();
+        long first = firstAcceptedNanos.get();
+        double seconds = first == 0 ? 0 : Math.max(lastCommitNanos - first, 1) / 1_000_000_000d;
+        return new IngestStats(queue.size(), properties.getCapacity(), accepted.get(), rejected.get(),
+                writtenCount, failed.get(), batchCount,
+                batchCount == 0 ? 0 : (double) writtenCount / batchCount,
+                seconds <= 0 ? 0 : writtenCount / seconds);
+    }
+
+    private void run() {
+        int batchSize = properties.getBatchSize();
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        List<PendingPost> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingPost first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos() + intervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || wait <= 0) {
+                        break;
+                    }
+                    PendingPost next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Interrupted by stop() or the JVM: the collected batch and the buffer won't be written
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                abandon(batch);
+                return;
+            } catch (RuntimeException e) {
+                // Never let the writer die, the batch was already failed by flush()
+                log.error("Post ingest writer failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void abandon(List<PendingPost> posts) {
+        ResponseStatusException stopped = new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Post ingest stopped before the post was written");
+        for (PendingPost pending : posts) {
+            if (pending.result().completeExceptionally(stopped)) {
+                failed.incrementAndGet();
+            }
+        }
+    }
+
+    private void flush(List<PendingPost> batch) {
+        long start = System.nanoTime();
+        List<Post> posts;
+        try {
+            posts = transactionTemplate.execute(status -> write(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                // One bad post (e.g. its user was deleted meanwhile) must not fail the others
+                log.warn("Batch of {} posts failed, writing them one by one: {}", batch.size(), e.getMessage());
+                batch.forEach(pending -> flush(List.of(pending)));
+                return;
+            }
+            failed.incrementAndGet();
+            batch.get(0).result().completeExceptionally(e);
+            return;
+        }
+        long now = System.nanoTime();
+        flushTimer.record(now - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        batches.incrementAndGet();
+        lastCommitNanos = now;
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingPost pending = batch.get(i);
+            Post post = posts.get(i);
+            if (post == null) {
+                failed.incrementAndGet();
+                pending.result().completeExceptionally(new ResponseStatusException(HttpStatus.BAD_REQUEST, "User not found"));
+                continue;
+            }
+            written.incrementAndGet();
+            userIds.add(pending.userId());
+            latencyTimer.record(now - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            pending.result().complete(post.getId());
+        }
+        secondLevelCache.evictUsers(new HashSet<>(userIds));
+    }
+
+    // The posts in batch order, null for a post whose user doesn't exist
+    private List<Post> write(List<PendingPost> batch) {
+        Set<Long> userIds = new HashSet<>();
+        batch.forEach(pending -> userIds.add(pending.userId()));
+        Set<Long> existing = new HashSet<>(socialUserRepository.findExistingIds(userIds));
+        // The whole batch in one JDBC batch instead of hibernate.jdbc.batch_size rows at a time
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batch.size());
+        List<Post> posts = new ArrayList<>(batch.size());
+        Map<Long, Integer> added = new HashMap<>();
+        for (PendingPost pending : batch) {
+            if (!existing.contains(pending.userId())) {
+                posts.add(null);
+                continue;
+            }
+            Post post = new Post();
+            post.setSocialUser(entityManager.getReference(SocialUser.class, pending.userId()));
+            post.setCreatedAt(pending.acceptedAt());
+            entityManager.persist(post);
+            posts.add(post);
+            added.merge(pending.userId(), 1, Integer::sum);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        counterRepository.addToPostCounts(added);
+        return posts;
+    }
+
+    private void registerCounter(String outcome, AtomicLong count) {
+        FunctionCounter.builder("social.ingest.posts", count, AtomicLong::get).tag("outcome", outcome).register(meterRegistry);
+    }
+
+    private record PendingPost(Long userId, Instant acceptedAt, long enqueuedNanos, CompletableFuture<Long> result) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.social.media.service;
+
+import com.social.media.dto.CursorPage;
+import com.social.media.models.Post;
+import com.social.media.repositories.CounterRepository;
+import com.social.media.repositories.PostRepository;
+import com.social.media.repositories.SocialUserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@Timed("social.service")
+@Service
+public class PostService {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private SocialUserRepository socialUserRepository;
+
+    @Autowired
+    private CounterRepository counterRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Transactional(readOnly = true)
+    public CursorPage<Post> getPosts(Long userId, Long after, int limit) {
+        SocialService.checkPageSize(limit);
+        List<Post> posts = postRepository.findBySocialUserIdAndIdGreaterThanOrderByIdAsc(userId, after == null ? 0L : after, Limit.of(limit + 1));
+        return CursorPage.of(posts, limit, Post::getId);
+    }
+
+    // The maintained counter, one row read instead of counting the user's posts
+    @Transactional(readOnly = true)
+    public long countPosts(Long userId) {
+        return socialUserRepository.findPostCount(userId).orElse(0L);
+    }
+
+    // The post and the user's post_count change in one transaction.
+    // The user is looked up in it as well, a read-only lookup could go to a replica that hasn't seen the user yet.
+    public Post createPost(Long userId) {
+        Post saved = transactionTemplate.execute(status -> {
+            if (!socialUserRepository.existsById(userId)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User not found");
+            }
+            Post post = new Post();
+            post.setSocialUser(socialUserRepository.getReferenceById(userId));
+            postRepository.saveAndFlush(post);
+            counterRepository.addToPostCount(userId, 1);
+            return post;
+        });
+        secondLevelCache.evictUsers(List.of(userId));
+        return saved;
+    }
+
+    public void deletePost(Long userId, Long postId) {
+        int deleted = transactionTemplate.execute(status -> {
+            int rows = postRepository.deleteByIdAndUserId(postId, userId);
+            if (rows > 0) {
+                counterRepository.addToPostCount(userId, -rows);
+            }
+            return rows;
+        });
+        if (deleted == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Post not found");
+        }
+        secondLevelCache.evictUsers(List.of(userId));
+    }
+}
@@ -0,0 +1,77 @@
+package com.social.media.service;
+
+import com.social.media.dto.Recommendation;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+// "People you may know": the users sharing the most groups with a user, scored from the MembershipIndex.
+// Results are kept in a bounded LRU cache. Membership changes are handled by invalidation only: the cached results
+// they can change (users who joined or left, members of the changed groups) are dropped and recomputed on their
+// next request, nothing is updated in place.
+@Timed("social.service")
+@Service
+public class RecommendationService {
+
+    public static final int DEFAULT_RECOMMENDATIONS = 10;
+    public static final int MAX_RECOMMENDATIONS = 100;
+    // Groups bigger than this don't count towards the score
+    static final int MAX_SCORED_GROUP_SIZE = 50_000;
+    static final int CACHE_SIZE = 10_000;
+
+    @Autowired
+    private MembershipIndex membershipIndex;
+
+    private final CoMembershipScorer scorer = new CoMembershipScorer(ForkJoinPool.commonPool());
+
+    private final Map<Long, List<Recommendation>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<Recommendation>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // Bumped by every invalidation, a result computed across one is not cached
+    private long generation;
+
+    public List<Recommendation> getRecommendations(Long userId, int limit) {
+        if (limit < 1 || limit > MAX_RECOMMENDATIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_RECOMMENDATIONS);
+        }
+        if (!membershipIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Membership index is still loading");
+        }
+        List<Recommendation> recommendations;
+        long computedAt;
+        synchronized (cache) {
+            recommendations = cache.get(userId);
+            computedAt = generation;
+        }
+        if (recommendations == null) {
+            // Always the maximum, so any limit can be served from the cache
+            recommendations = scorer.topK(membershipIndex, userId, MAX_RECOMMENDATIONS, MAX_SCORED_GROUP_SIZE);
+            synchronized (cache) {
+                if (generation == computedAt) {
+                    cache.put(userId, recommendations);
+                }
+            }
+        }
+        return recommendations.subList(0, Math.min(limit, recommendations.size()));
+    }
+
+    @EventListener
+    public void onMembershipsChanged(MembershipsChangedEvent event) {
+        synchronized (cache) {
+            generation++;
+            membershipIndex.evictAffected(cache, event);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.social.media.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialUser;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+// Evictions Hibernate can't work out by itself, e.g. the inverse side of a many-to-many.
+// Call after the write committed, evicting earlier lets a concurrent reader cache the old state again.
+@Component
+public class SecondLevelCache {
+
+    static final String GROUP_MEMBERS = "com.social.media.models.SocialGroup.socialUsers";
+    static final String USER_GROUPS = "com.social.media.models.SocialUser.groups";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public void evictGroupMembers(Collection<Long> groupIds) {
+        Cache cache = cache();
+        groupIds.forEach(groupId -> cache.evictCollectionData(GROUP_MEMBERS, groupId));
+    }
+
+    public void evictUserGroups(Collection<Long> userIds) {
+        Cache cache = cache();
+        userIds.forEach(userId -> cache.evictCollectionData(USER_GROUPS, userId));
+    }
+
+    // Entities whose counter columns were changed with plain SQL (CounterRepository)
+    public void evictUsers(Collection<Long> userIds) {
+        Cache cache = cache();
+        userIds.forEach(userId -> cache.evictEntityData(SocialUser.class, userId));
+    }
+
+    public void evictGroups(Collection<Long> groupIds) {
+        Cache cache = cache();
+        groupIds.forEach(groupId -> cache.evictEntityData(SocialGroup.class, groupId));
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+}
@@ -1,31 +1,359 @@
 package com.social.media.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.social.media.dto.CursorPage;
+import com.social.media.dto.DeleteResult;
+import com.social.media.dto.ImportResult;
+import com.social.media.dto.MembershipRow;
+import com.social.media.dto.UserStats;
+import com.social.media.dto.UserSummary;
+import com.social.media.dto.UserSummaryRow;
+import com.social.media.models.Post;
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialProfile;
 import com.social.media.models.SocialUser;
+import com.social.media.repositories.CounterRepository;
+import com.social.media.repositories.GroupRepository;
+import com.social.media.repositories.MembershipRepository;
+import com.social.media.repositories.PostRepository;
+import com.social.media.repositories.SocialProfileRepository;
 import com.social.media.repositories.SocialUserRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+// Timed per method as social.service{class, method}
+@Timed("social.service")
 @Service
 public class SocialService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    static final int EXPORT_CHUNK_SIZE = 100;
+    // One transaction per chunk, a multiple of hibernate.jdbc.batch_size
+    static final int IMPORT_CHUNK_SIZE = 500;
+    public static final int MAX_DELETE_BATCH = 10_000;
+    // Ids per "in (...)" list
+    static final int DELETE_CHUNK_SIZE = 1000;
+
     @Autowired
     private SocialUserRepository socialUserRepository;
 
-    public List<SocialUser> getAllUsers() {
-        return socialUserRepository.findAll();
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private SocialProfileRepository socialProfileRepository;
+
+    @Autowired
+    private MembershipRepository membershipRepository;
+
+    @Autowired
+    private CounterRepository counterRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private MembershipIndex membershipIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Read-only transactions read from the replica when there is one (ReadReplicaConfig)
+    @Transactional(readOnly = true)
+    public CursorPage<UserSummary> getUserSummaries(Long after, int limit) {
+        checkPageSize(limit);
+        // Ask for one extra row so we know whether there is a next page without a count(*) query
+        List<UserSummaryRow> rows = socialUserRepository.findSummaries(after == null ? 0L : after, Limit.of(limit + 1));
+        return CursorPage.of(toSummaries(rows), limit, UserSummary::getId);
+    }
+
+    // Profile header "N posts, M groups": one row by primary key, neither collection is touched
+    @Transactional(readOnly = true)
+    public UserStats getUserStats(Long userId) {
+        return socialUserRepository.findStats(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "User not found"));
+    }
+
+    // Adds the group ids to a page of summary rows with one more query for the whole page
+    List<UserSummary> toSummaries(List<UserSummaryRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> userIds = rows.stream().map(UserSummaryRow::getId).toList();
+        Map<Long, List<Long>> groupIds = socialUserRepository.findMemberships(userIds).stream()
+                .collect(Collectors.groupingBy(MembershipRow::getUserId,
+                        Collectors.mapping(MembershipRow::getGroupId, Collectors.toList())));
+        return rows.stream()
+                .map(row -> new UserSummary(row.getId(), row.getDescription(), row.getPostCount(),
+                        groupIds.getOrDefault(row.getId(), List.of())))
+                .toList();
+    }
+
+    // Writes every user as one JSON document per line (NDJSON), a chunk at a time. Each chunk is a keyset page read
+    // and serialized in its own short read-only transaction (the @BatchSize on posts/groups loads the whole chunk's
+    // collections with one query each) and written after the commit: no connection is held while the client reads,
+    // and memory holds one chunk however many users there are. The chunk's persistence context ends with its
+    // transaction, the export is not run in an open-in-view one (OpenInViewConfig).
+    public long exportUsers(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(SocialUser.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long exported = 0;
+        long after = 0;
+        ExportChunk chunk;
+        do {
+            long from = after;
+            chunk = readOnly.execute(status -> readChunk(from, writer));
+            out.write(chunk.ndjson());
+            out.flush();
+            exported += chunk.users();
+            after = chunk.lastId();
+        } while (chunk.users() == EXPORT_CHUNK_SIZE);
+        return exported;
     }
 
     public SocialUser saveUser(SocialUser user) {
-        return socialUserRepository.save(user);
+        // Member sets cached for the groups the user leaves or joins are stale after the save
+        Set<Long> groupIds = groupIdsOf(List.of(user));
+        Set<Long> previousGroupIds = new HashSet<>();
+        // socialUser is @JsonIgnore'd, without the back-reference the posts would be saved without a user_id
+        user.getPosts().forEach(post -> post.setSocialUser(user));
+        SocialUser saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                prepareForMerge(user);
+                // Read in the transaction and after the version: a membership change committed after the version
+                // was read moves it on (CounterRepository.addToGroupCount) and fails the save, so the member_count
+                // deltas are always taken against the memberships the save replaces
+                if (user.getId() != null) {
+                    previousGroupIds.addAll(socialUserRepository.findGroupIds(user.getId()));
+                }
+                Set<Long> joined = new HashSet<>(groupIds);
+                joined.removeAll(previousGroupIds);
+                Set<Long> left = new HashSet<>(previousGroupIds);
+                left.removeAll(groupIds);
+                SocialUser merged = socialUserRepository.saveAndFlush(user);
+                // The save replaces posts and groups wholesale, the user's own counters are recounted from its rows
+                counterRepository.recountUser(merged.getId());
+                counterRepository.addToMemberCounts(deltas(joined, left));
+                entityManager.refresh(merged);
+                return merged;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "User was changed since it was read, reload it and retry");
+        }
+        Set<Long> changedGroupIds = new HashSet<>(groupIds);
+        changedGroupIds.addAll(previousGroupIds);
+        secondLevelCache.evictGroupMembers(changedGroupIds);
+        secondLevelCache.evictUsers(List.of(saved.getId()));
+        secondLevelCache.evictGroups(changedGroupIds);
+        membershipIndex.refreshUsers(List.of(saved.getId()));
+        return saved;
+    }
+
+    // An update should carry the versions the client read. Without them it is saved over the current row,
+    // last writer wins (and the save still fails if the row changes between this read and the flush).
+    // Groups are only referenced by id in the request, a merge would take them for stale copies of the rows.
+    private void prepareForMerge(SocialUser user) {
+        user.setGroups(new HashSet<>(loadGroups(List.of(user)).values()));
+        if (user.getId() != null && user.getVersion() == null) {
+            user.setVersion(socialUserRepository.findVersion(user.getId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "User not found")));
+        }
+        SocialProfile profile = user.getSocialProfile();
+        if (profile != null && profile.getId() != null && profile.getVersion() == null) {
+            profile.setVersion(socialProfileRepository.findVersion(profile.getId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Profile not found")));
+        }
+    }
+
+    // Bulk onboarding: every chunk is persisted in its own transaction and flushed as JDBC batches,
+    // then detached so the persistence context doesn't grow with the size of the import.
+    // A failing chunk rolls back on its own, the chunks before it stay committed.
+    public ImportResult importUsers(List<SocialUser> users) {
+        long start = System.nanoTime();
+        long rows = 0;
+        for (int from = 0; from < users.size(); from += IMPORT_CHUNK_SIZE) {
+            List<SocialUser> chunk = users.subList(from, Math.min(from + IMPORT_CHUNK_SIZE, users.size()));
+            rows += transactionTemplate.execute(status -> persistChunk(chunk));
+            secondLevelCache.evictGroupMembers(groupIdsOf(chunk));
+            secondLevelCache.evictGroups(groupIdsOf(chunk));
+            // One index update and one MembershipsChangedEvent per chunk
+            membershipIndex.refreshUsers(chunk.stream().map(SocialUser::getId).toList());
+        }
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        double rowsPerSecond = rows * 1_000_000_000d / elapsedNanos;
+        return new ImportResult(users.size(), rows, elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+
+    private long persistChunk(List<SocialUser> chunk) {
+        Map<Long, SocialGroup> groups = loadGroups(chunk);
+        Map<Long, Integer> newMembers = new HashMap<>();
+        long rows = 0;
+        for (SocialUser user : chunk) {
+            user.setId(null);
+            user.setVersion(null);
+            rows++;
+            if (user.getSocialProfile() != null) {
+                user.getSocialProfile().setId(null);
+                user.getSocialProfile().setVersion(null);
+                rows++;
+            }
+            for (Post post : user.getPosts()) {
+                // socialUser is @JsonIgnore'd, so the back-reference is never set by the request body
+                post.setId(null);
+                post.setSocialUser(user);
+                rows++;
+            }
+            Set<SocialGroup> memberships = new HashSet<>();
+            for (SocialGroup group : user.getGroups()) {
+                memberships.add(groups.get(group.getId()));
+            }
+            user.setGroups(memberships);
+            rows += memberships.size();
+            // New rows, the counters are exact from the request
+            user.setPostCount(user.getPosts().size());
+            user.setGroupCount(memberships.size());
+            memberships.forEach(group -> newMembers.merge(group.getId(), 1, Integer::sum));
+            entityManager.persist(user);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        counterRepository.addToMemberCounts(newMembers);
+        return rows;
+    }
+
+    // Groups are referenced by id in the request; load all of them for the chunk in one query.
+    private Map<Long, SocialGroup> loadGroups(List<SocialUser> chunk) {
+        Set<Long> ids = groupIdsOf(chunk);
+        if (chunk.stream().flatMap(user -> user.getGroups().stream()).anyMatch(group -> group.getId() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Groups must be referenced by id");
+        }
+        Map<Long, SocialGroup> groups = groupRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(SocialGroup::getId, Function.identity()));
+        if (groups.size() != ids.size()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Group not found");
+        }
+        return groups;
+    }
+
+    public DeleteResult deleteUser(Long id) {
+        DeleteResult result = deleteUsers(List.of(id));
+        if (result.getUsers() == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User not found");
+        }
+        return result;
+    }
+
+    // Set-based purge: user_group rows, posts, profiles and then the users are removed with one
+    // "delete ... where ... in (...)" per table and chunk of ids, all in a single transaction.
+    // Nothing is loaded into the persistence context, unknown ids are ignored.
+    public DeleteResult deleteUsers(List<Long> ids) {
+        if (ids.size() > MAX_DELETE_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_DELETE_BATCH + " users per request");
+        }
+        List<Long> userIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        userIds.removeIf(Objects::isNull);
+        Set<Long> groupIds = new HashSet<>();
+        DeleteResult result = transactionTemplate.execute(status -> {
+            DeleteResult deleted = new DeleteResult();
+            for (int from = 0; from < userIds.size(); from += DELETE_CHUNK_SIZE) {
+                List<Long> chunk = userIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, userIds.size()));
+                Map<Long, Integer> memberships = membershipRepository.countMembershipsByGroup(chunk);
+                groupIds.addAll(memberships.keySet());
+                memberships.replaceAll((groupId, count) -> -count);
+                counterRepository.addToMemberCounts(memberships);
+                deleted.setMemberships(deleted.getMemberships() + membershipRepository.deleteByUserIds(chunk));
+                deleted.setPosts(deleted.getPosts() + postRepository.deleteByUserIds(chunk));
+                deleted.setProfiles(deleted.getProfiles() + socialProfileRepository.deleteByUserIds(chunk));
+                deleted.setUsers(deleted.getUsers() + socialUserRepository.deleteByIds(chunk));
+            }
+            return deleted;
+        });
+        // The JPQL deletes evict the user/profile regions themselves, user_group and the
+        // groups' member_count were changed behind Hibernate's back
+        secondLevelCache.evictGroupMembers(groupIds);
+        secondLevelCache.evictGroups(groupIds);
+        secondLevelCache.evictUserGroups(userIds);
+        membershipIndex.refreshUsers(userIds);
+        return result;
+    }
+
+    private ExportChunk readChunk(long after, ObjectWriter writer) {
+        List<SocialUser> users = socialUserRepository.findPage(after, Limit.of(EXPORT_CHUNK_SIZE));
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        try {
+            for (SocialUser user : users) {
+                writer.writeValue(ndjson, user);
+                ndjson.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ExportChunk(ndjson.toByteArray(), users.size(), users.isEmpty() ? after : users.get(users.size() - 1).getId());
+    }
+
+    private static Map<Long, Integer> deltas(Set<Long> joined, Set<Long> left) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        joined.forEach(groupId -> deltas.put(groupId, 1));
+        left.forEach(groupId -> deltas.put(groupId, -1));
+        return deltas;
+    }
+
+    private static Set<Long> groupIdsOf(List<SocialUser> users) {
+        return users.stream()
+                .flatMap(user -> user.getGroups().stream())
+                .map(SocialGroup::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    static void checkPageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
     }
 
-    public SocialUser deleteUser(Long id) {
-        SocialUser user = socialUserRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "User not found"));
-        socialUserRepository.delete(user);
-        return user;
+    private record ExportChunk(byte[] ndjson, int users, long lastId) {
     }
 }
@@ -0,0 +1,62 @@
+package com.social.media.service;
+
+import com.social.media.dto.CacheRegionStats;
+import com.social.media.dto.HibernateStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class StatsService {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Per-region counters of the second-level and query cache, needs hibernate.generate_statistics=true
+    public List<CacheRegionStats> getRegionStats() {
+        Statistics statistics = statistics();
+        String[] regions = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+        List<CacheRegionStats> result = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            long lookups = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+            double hitRatio = lookups == 0 ? 0 : (double) regionStatistics.getHitCount() / lookups;
+            long elementsInMemory = Math.max(regionStatistics.getElementCountInMemory(), -1);
+            result.add(new CacheRegionStats(region, regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(), hitRatio, elementsInMemory));
+        }
+        return result;
+    }
+
+    // Session factory wide counters: a fetch is a lazy load that hit the database, so collection fetches
+    // growing with the number of rows returned is the N+1 signature
+    public HibernateStats getHibernateStats() {
+        Statistics statistics = statistics();
+        return new HibernateStats(statistics.getPrepareStatementCount(), statistics.getQueryExecutionCount(),
+                statistics.getQueryExecutionMaxTime(), statistics.getQueryExecutionMaxTimeQueryString(),
+                statistics.getEntityLoadCount(), statistics.getEntityFetchCount(),
+                statistics.getCollectionLoadCount(), statistics.getCollectionFetchCount(),
+                statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getTransactionCount(), statistics.getFlushCount());
+    }
+
+    public void resetHibernateStats() {
+        statistics().clear();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
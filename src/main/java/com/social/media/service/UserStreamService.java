@@ -0,0 +1,32 @@
+package com.social.media.service;
+
+import com.social.media.dto.CursorPage;
+import com.social.media.dto.UserSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Service
+public class UserStreamService {
+
+    @Autowired
+    private SocialService socialService;
+
+    // Pages through the users with the keyset summary query and emits them one by one.
+    // A page is only read when the subscriber asked for more than the previous page held (prefetch 1),
+    // so a slow client holds at most one page in memory, and the first user goes out after the first page.
+    // The blocking JDBC reads run on the bounded elastic scheduler, never on the caller's thread.
+    public Flux<UserSummary> streamUserSummaries(int pageSize) {
+        SocialService.checkPageSize(pageSize);
+        return readPage(null, pageSize)
+                .expand(page -> page.getNextCursor() == null ? Mono.empty() : readPage(page.getNextCursor(), pageSize))
+                .concatMapIterable(CursorPage::getItems, 1);
+    }
+
+    private Mono<CursorPage<UserSummary>> readPage(Long after, int pageSize) {
+        return Mono.fromCallable(() -> socialService.getUserSummaries(after, pageSize))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,51 @@
+-- Schema of the entities in com.social.media.models, Hibernate only validates it (ddl-auto=validate).
+-- Sequences increment by 50, the allocationSize of the entities' @SequenceGenerator (pooled ids).
+create sequence social_user_seq start with 1 increment by 50;
+create sequence social_profile_seq start with 1 increment by 50;
+create sequence social_group_seq start with 1 increment by 50;
+create sequence post_seq start with 1 increment by 50;
+
+create table social_user (
+    id bigint not null,
+    post_count bigint default 0 not null,
+    group_count bigint default 0 not null,
+    primary key (id)
+);
+
+create table social_profile (
+    id bigint not null,
+    social_user bigint,
+    description varchar(255),
+    primary key (id),
+    constraint fk_social_profile_social_user foreign key (social_user) references social_user
+);
+
+create table social_group (
+    id bigint not null,
+    member_count bigint default 0 not null,
+    primary key (id)
+);
+
+create table post (
+    id bigint not null,
+    user_id bigint,
+    primary key (id),
+    constraint fk_post_user foreign key (user_id) references social_user
+);
+
+create table user_group (
+    group_id bigint not null,
+    user_id bigint not null,
+    primary key (group_id, user_id),
+    constraint fk_user_group_group foreign key (group_id) references social_group,
+    constraint fk_user_group_user foreign key (user_id) references social_user
+);
+
+-- H2 gives every foreign key a single-column index of its own, these cover whole queries instead.
+-- user_group: the primary key (group_id, user_id) serves "members of a group", this one "groups of a user",
+-- both in order and without reading the table rows (MembershipIndex reads the table through it at startup)
+create index idx_user_group_user_id on user_group (user_id, group_id);
+-- A user's posts in id order (keyset pages, counts, deletes by user)
+create index idx_post_user_id on post (user_id, id);
+-- The profile of a user (the non-owning @OneToOne is joined on it), one profile per user
+create unique index idx_social_profile_social_user on social_profile (social_user);
@@ -0,0 +1,5 @@
+-- Creation time of a post, for the home feed (FeedService). Existing posts get the time of the migration.
+alter table post add column created_at timestamp(6) with time zone default current_timestamp not null;
+
+-- A user's posts newest first: the feed query reads the latest posts of every co-member through it
+create index idx_post_user_created_at on post (user_id, created_at);
@@ -0,0 +1,4 @@
+-- Optimistic locking (@Version) of users, profiles and groups. Existing rows start at version 0.
+alter table social_user add column version bigint default 0 not null;
+alter table social_profile add column version bigint default 0 not null;
+alter table social_group add column version bigint default 0 not null;
@@ -0,0 +1,15 @@
+-- Pending changes of social_group.member_count. A join or leave inserts its delta here instead of updating
+-- the group's row, so concurrent membership changes of one group don't queue on that row's lock.
+-- CounterReconciler folds the rows into member_count and deletes them; until then readers add them up.
+create table group_member_count_delta (
+    id bigint generated by default as identity,
+    group_id bigint not null,
+    delta bigint not null,
+    primary key (id)
+);
+
+-- The pending deltas of a group, for the readers. Created before the foreign key, which then uses it.
+create index idx_group_member_count_delta_group on group_member_count_delta (group_id);
+
+alter table group_member_count_delta add constraint fk_group_member_count_delta_group
+    foreign key (group_id) references social_group;
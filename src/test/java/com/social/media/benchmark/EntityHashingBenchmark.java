@@ -0,0 +1,117 @@
+package com.social.media.benchmark;
+
+import com.social.media.models.Post;
+import com.social.media.models.SocialUser;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding users with thousands of posts to a HashSet (what SocialGroup.socialUsers does on load),
+ * with the entities' id-based equality against the field-by-field equality Lombok's @Data generated before.
+ * The @Data copies have no back-references: with them hashCode() never returns (SocialUser -> Post -> SocialUser).
+ * constantHash is the other common entity pattern, equality by id with one hash code per class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityHashingBenchmark {
+
+	@Param("100")
+	public int users;
+
+	@Param({"10", "5000"})
+	public int postsPerUser;
+
+	private List<SocialUser> entities;
+	private List<DataUser> dataUsers;
+	private List<ConstantHashUser> constantHashUsers;
+
+	@Data
+	static class DataPost {
+		private Long id;
+	}
+
+	@Data
+	static class DataUser {
+		private Long id;
+		private List<DataPost> posts = new ArrayList<>();
+	}
+
+	static class ConstantHashUser {
+		private final Long id;
+
+		ConstantHashUser(Long id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof ConstantHashUser other && id != null && id.equals(other.id);
+		}
+
+		@Override
+		public int hashCode() {
+			return ConstantHashUser.class.hashCode();
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		entities = new ArrayList<>(users);
+		dataUsers = new ArrayList<>(users);
+		constantHashUsers = new ArrayList<>(users);
+		long ids = 1;
+		for (int u = 0; u < users; u++) {
+			SocialUser user = new SocialUser();
+			user.setId(ids);
+			DataUser dataUser = new DataUser();
+			dataUser.setId(ids++);
+			for (int p = 0; p < postsPerUser; p++) {
+				Post post = new Post();
+				post.setId(ids);
+				post.setSocialUser(user);
+				user.getPosts().add(post);
+				DataPost dataPost = new DataPost();
+				dataPost.setId(ids++);
+				dataUser.getPosts().add(dataPost);
+			}
+			entities.add(user);
+			dataUsers.add(dataUser);
+			constantHashUsers.add(new ConstantHashUser(user.getId()));
+		}
+	}
+
+	@Benchmark
+	public Set<SocialUser> idEquality() {
+		return new HashSet<>(entities);
+	}
+
+	@Benchmark
+	public Set<DataUser> dataEquality() {
+		return new HashSet<>(dataUsers);
+	}
+
+	@Benchmark
+	public Set<ConstantHashUser> constantHash() {
+		return new HashSet<>(constantHashUsers);
+	}
+}
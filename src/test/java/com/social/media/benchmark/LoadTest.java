@@ -0,0 +1,152 @@
+package com.social.media.benchmark;
+
+import com.social.media.MediaApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load test of the read path, run once with requests on Tomcat's platform threads and once
+ * with the {@code virtual-threads} profile (skipped on a Java runtime without virtual threads).
+ * Every mode runs in a fresh JVM, a mode run after another in the same JVM finds the JIT already warm.
+ * Prints throughput and latency percentiles per mode.
+ * <p>
+ * Arguments: {@code [clients] [seconds] [users]}, defaults 16 clients, 20 s, 10000 seeded users.
+ */
+public class LoadTest {
+
+	private static final Duration WARMUP = Duration.ofSeconds(5);
+	private static final String RESULT = "RESULT ";
+
+	public static void main(String[] args) throws Exception {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int users = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+		if (args.length > 3) {
+			// A single mode, started by the loop below
+			System.out.println(RESULT + run(args[3], clients, seconds, users));
+			System.exit(0);
+		}
+
+		List<String> results = new ArrayList<>();
+		for (String mode : List.of("platform", "virtual-threads")) {
+			if (mode.equals("virtual-threads") && Runtime.version().feature() < 21) {
+				results.add(String.format("%-16s skipped, needs Java 21+ (running %d)", mode, Runtime.version().feature()));
+				continue;
+			}
+			results.add(runInNewJvm(mode, clients, seconds, users));
+		}
+		System.out.printf("%n%d clients, %d s, %d users, GET social/users/summary?limit=50%n", clients, seconds, users);
+		results.forEach(System.out::println);
+		System.exit(0);
+	}
+
+	private static String runInNewJvm(String mode, int clients, int seconds, int users) throws Exception {
+		String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+		Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), LoadTest.class.getName(),
+				String.valueOf(clients), String.valueOf(seconds), String.valueOf(users), mode)
+				.redirectErrorStream(true).start();
+		String result = null;
+		try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			for (String line = output.readLine(); line != null; line = output.readLine()) {
+				if (line.startsWith(RESULT)) {
+					result = line.substring(RESULT.length());
+				}
+			}
+		}
+		process.waitFor();
+		return result != null ? result : String.format("%-16s failed, exit code %d", mode, process.exitValue());
+	}
+
+	private static String run(String mode, int clients, int seconds, int users) throws Exception {
+		ConfigurableApplicationContext context = SpringApplication.run(MediaApplication.class,
+				"--spring.profiles.active=" + (mode.equals("platform") ? "default" : mode),
+				"--server.port=0",
+				"--spring.main.banner-mode=off",
+				"--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode,
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN",
+				"--logging.level.org.hibernate.SQL=WARN",
+				"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+				"--social.seed.users=" + users,
+				"--social.seed.groups=" + Math.max(users / 100, 1),
+				"--social.seed.memberships-per-user=3",
+				"--social.seed.max-posts-per-user=20");
+		try {
+			String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+			// Ids start after the generator's first skipped blocks, a cursor past the end just returns an empty page
+			long maxCursor = users + 100L;
+
+			drive(client, baseUrl, clients, WARMUP, maxCursor);
+			long[] latencies = drive(client, baseUrl, clients, Duration.ofSeconds(seconds), maxCursor);
+
+			if (latencies.length == 0) {
+				return String.format("%-16s no request answered within %d s", mode, seconds);
+			}
+			Arrays.sort(latencies);
+			return String.format("%-16s %8.0f req/s   p50 %6.2f ms   p99 %6.2f ms   max %7.2f ms",
+					mode, latencies.length / (double) seconds,
+					percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+		} finally {
+			context.close();
+		}
+	}
+
+	// Every client sends its next request as soon as the previous one answered
+	private static long[] drive(HttpClient client, String baseUrl, int clients, Duration duration, long maxCursor) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		long deadline = System.nanoTime() + duration.toNanos();
+		List<Future<long[]>> futures = new ArrayList<>();
+		for (int c = 0; c < clients; c++) {
+			futures.add(executor.submit(() -> {
+				long[] samples = new long[1024];
+				int count = 0;
+				while (System.nanoTime() < deadline) {
+					long cursor = ThreadLocalRandom.current().nextLong(maxCursor);
+					HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/social/users/summary?limit=50&after=" + cursor)).build();
+					long start = System.nanoTime();
+					HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+					long latency = System.nanoTime() - start;
+					if (response.statusCode() != 200) {
+						throw new IllegalStateException("HTTP " + response.statusCode());
+					}
+					if (count == samples.length) {
+						samples = Arrays.copyOf(samples, count * 2);
+					}
+					samples[count++] = latency;
+				}
+				return Arrays.copyOf(samples, count);
+			}));
+		}
+		long[] all = new long[0];
+		for (Future<long[]> future : futures) {
+			long[] samples = future.get();
+			int offset = all.length;
+			all = Arrays.copyOf(all, offset + samples.length);
+			System.arraycopy(samples, 0, all, offset, samples.length);
+		}
+		executor.shutdown();
+		return all;
+	}
+
+	private static double percentile(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(index, 0)] / 1e6;
+	}
+}
@@ -0,0 +1,37 @@
+package com.social.media.benchmark;
+
+import com.social.media.models.Post;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts per second from many concurrent writers, see {@link SeededDatabase} for the scale parameters:
+ * one transaction per post (PostService.createPost) against the write-behind buffer, waiting for the
+ * commit like AckMode.DURABLE does. The end-to-end totals are also in PostIngestService.getStats().
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(128)
+@Fork(1)
+public class PostIngestBenchmark {
+
+	@Benchmark
+	public Post createPost(SeededDatabase db) {
+		return db.postService.createPost(db.randomUserId());
+	}
+
+	@Benchmark
+	public Long ingestDurable(SeededDatabase db) {
+		return db.postIngestService.enqueue(db.randomUserId()).join();
+	}
+}
@@ -0,0 +1,136 @@
+package com.social.media.benchmark;
+
+import com.social.media.dto.Recommendation;
+import com.social.media.service.CoMembershipScorer;
+import com.social.media.service.MembershipIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-k co-membership scoring on a MembershipIndex filled in memory, 1M users by default,
+ * group sizes following a power law like the seed data (the biggest groups exceed maxGroupSize).
+ * Compares the fork-join scorer on all cores and on one thread with counting in a HashMap,
+ * which is what walking SocialUser.groups -> SocialGroup.socialUsers amounts to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecommendationBenchmark {
+
+	@Param("1000000")
+	public int users;
+
+	@Param("10000")
+	public int groups;
+
+	@Param("5")
+	public int membershipsPerUser;
+
+	@Param("50000")
+	public int maxGroupSize;
+
+	private static final int K = 100;
+	private static final int SAMPLED_USERS = 1024;
+
+	private MembershipIndex index;
+	private CoMembershipScorer parallel;
+	private CoMembershipScorer sequential;
+	private ForkJoinPool singleThread;
+	private long[] sampledUsers;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		SplittableRandom random = new SplittableRandom(42);
+		double[] cumulative = new double[groups];
+		double sum = 0;
+		for (int rank = 1; rank <= groups; rank++) {
+			sum += 1.0 / rank;
+			cumulative[rank - 1] = sum;
+		}
+		List<List<Long>> members = new ArrayList<>(groups);
+		for (int g = 0; g < groups; g++) {
+			members.add(new ArrayList<>());
+		}
+		for (long user = 1; user <= users; user++) {
+			for (int m = 0; m < membershipsPerUser; m++) {
+				int found = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+				members.get(found >= 0 ? found : -found - 1).add(user);
+			}
+		}
+		index = new MembershipIndex();
+		for (int g = 0; g < groups; g++) {
+			if (!members.get(g).isEmpty()) {
+				index.addMembers(g + 1, members.get(g));
+			}
+		}
+		parallel = new CoMembershipScorer(ForkJoinPool.commonPool());
+		singleThread = new ForkJoinPool(1);
+		sequential = new CoMembershipScorer(singleThread);
+		sampledUsers = random.longs(SAMPLED_USERS, 1, users + 1L).toArray();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		singleThread.shutdown();
+	}
+
+	@Benchmark
+	public List<Recommendation> forkJoin() {
+		return parallel.topK(index, nextUser(), K, maxGroupSize);
+	}
+
+	@Benchmark
+	public List<Recommendation> singleThread() {
+		return sequential.topK(index, nextUser(), K, maxGroupSize);
+	}
+
+	@Benchmark
+	public List<Recommendation> hashMapCounting() {
+		long userId = nextUser();
+		Map<Long, Integer> scores = new HashMap<>();
+		for (long groupId : index.groupsOf(userId)) {
+			long[] groupMembers = index.membersOf(groupId);
+			if (groupMembers.length > maxGroupSize) {
+				continue;
+			}
+			for (long member : groupMembers) {
+				if (member != userId) {
+					scores.merge(member, 1, Integer::sum);
+				}
+			}
+		}
+		return scores.entrySet().stream()
+				.sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+				.limit(K)
+				.map(entry -> new Recommendation(entry.getKey(), entry.getValue()))
+				.toList();
+	}
+
+	private long nextUser() {
+		return sampledUsers[next++ & (SAMPLED_USERS - 1)];
+	}
+}
@@ -0,0 +1,126 @@
+package com.social.media.benchmark;
+
+import com.social.media.MediaApplication;
+import com.social.media.models.Post;
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialProfile;
+import com.social.media.models.SocialUser;
+import com.social.media.repositories.SocialUserRepository;
+import com.social.media.service.GroupService;
+import com.social.media.service.PostIngestService;
+import com.social.media.service.PostService;
+import com.social.media.service.SocialService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Boots the application against its own in-memory H2 database, seeded by the application's
+ * {@link com.social.media.config.DataGenerator} with {@code users} users in {@code groups} groups
+ * (power-law group sizes, Zipfian posts per user). Change the scale with e.g. {@code -p users=1000000}.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+	private static final int NEW_USER_POSTS = 3;
+
+	@Param("1000")
+	public int users;
+
+	@Param("20")
+	public int groups;
+
+	@Param("3")
+	public int membershipsPerUser;
+
+	@Param("10")
+	public int maxPostsPerUser;
+
+	ConfigurableApplicationContext context;
+	SocialService socialService;
+	GroupService groupService;
+	PostService postService;
+	PostIngestService postIngestService;
+	SocialUserRepository userRepository;
+	TransactionTemplate transactionTemplate;
+	List<Long> groupIds;
+	long minUserId;
+	long maxUserId;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = SpringApplication.run(MediaApplication.class,
+				"--spring.main.web-application-type=none",
+				"--spring.main.banner-mode=off",
+				"--spring.datasource.url=jdbc:h2:mem:benchmark",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN",
+				"--logging.level.org.hibernate.SQL=WARN",
+				"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+				"--social.seed.users=" + users,
+				"--social.seed.groups=" + groups,
+				"--social.seed.memberships-per-user=" + membershipsPerUser,
+				"--social.seed.max-posts-per-user=" + maxPostsPerUser);
+		socialService = context.getBean(SocialService.class);
+		groupService = context.getBean(GroupService.class);
+		postService = context.getBean(PostService.class);
+		postIngestService = context.getBean(PostIngestService.class);
+		userRepository = context.getBean(SocialUserRepository.class);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		readIdRanges();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	long randomUserId() {
+		return ThreadLocalRandom.current().nextLong(minUserId, maxUserId + 1);
+	}
+
+	long randomGroupId() {
+		return groupIds.get(ThreadLocalRandom.current().nextInt(groupIds.size()));
+	}
+
+	SocialUser newUser() {
+		SocialUser user = new SocialUser();
+		SocialProfile profile = new SocialProfile();
+		profile.setDescription("benchmark user");
+		user.setSocialProfile(profile);
+		for (int p = 0; p < NEW_USER_POSTS; p++) {
+			Post post = new Post();
+			post.setSocialUser(user);
+			user.getPosts().add(post);
+		}
+		for (int g = 0; g < membershipsPerUser; g++) {
+			SocialGroup group = new SocialGroup();
+			group.setId(randomGroupId());
+			user.getGroups().add(group);
+		}
+		return user;
+	}
+
+	private void readIdRanges() {
+		EntityManager entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+		try {
+			groupIds = entityManager.createQuery("select g.id from SocialGroup g", Long.class).getResultList();
+			Object[] range = (Object[]) entityManager.createQuery("select min(u.id), max(u.id) from SocialUser u").getSingleResult();
+			minUserId = (Long) range[0];
+			maxUserId = (Long) range[1];
+		} finally {
+			entityManager.close();
+		}
+	}
+}
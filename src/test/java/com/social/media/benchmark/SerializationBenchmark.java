@@ -0,0 +1,101 @@
+package com.social.media.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.social.media.models.Post;
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialProfile;
+import com.social.media.models.SocialUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a page of detached users, no database involved, in every format
+ * the controllers negotiate: JSON, Smile and CBOR. The mappers are configured like the application's
+ * (see BinaryFormatsConfig), the payload size of each format is printed in the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param("50")
+	public int pageSize;
+
+	@Param("20")
+	public int postsPerUser;
+
+	@Param("5")
+	public int groupsPerUser;
+
+	@Param({"json", "smile", "cbor"})
+	public String format;
+
+	private ObjectMapper objectMapper;
+	private List<SocialUser> page;
+	private byte[] encoded;
+
+	@Setup
+	public void setUp() throws Exception {
+		Jackson2ObjectMapperBuilder builder = switch (format) {
+			case "smile" -> Jackson2ObjectMapperBuilder.smile();
+			case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+			default -> Jackson2ObjectMapperBuilder.json();
+		};
+		objectMapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+		Instant now = Instant.now();
+		page = new ArrayList<>(pageSize);
+		long ids = 1;
+		for (int u = 0; u < pageSize; u++) {
+			SocialUser user = new SocialUser();
+			user.setId(ids++);
+			SocialProfile profile = new SocialProfile();
+			profile.setId(ids++);
+			profile.setDescription("profile of user " + u);
+			user.setSocialProfile(profile);
+			for (int p = 0; p < postsPerUser; p++) {
+				Post post = new Post();
+				post.setId(ids++);
+				post.setSocialUser(user);
+				post.setCreatedAt(now.minusSeconds(ids * 37));
+				user.getPosts().add(post);
+			}
+			for (int g = 0; g < groupsPerUser; g++) {
+				SocialGroup group = new SocialGroup();
+				group.setId((long) g);
+				user.getGroups().add(group);
+			}
+			page.add(user);
+		}
+		encoded = objectMapper.writeValueAsBytes(page);
+		System.out.printf("%n%s payload of %d users: %d bytes%n", format, pageSize, encoded.length);
+	}
+
+	@Benchmark
+	public byte[] serializePage() throws Exception {
+		return objectMapper.writeValueAsBytes(page);
+	}
+
+	@Benchmark
+	public SocialUser[] deserializePage() throws Exception {
+		return objectMapper.readValue(encoded, SocialUser[].class);
+	}
+}
@@ -0,0 +1,88 @@
+package com.social.media.benchmark;
+
+import com.social.media.dto.CursorPage;
+import com.social.media.dto.DeleteResult;
+import com.social.media.dto.MembershipChange;
+import com.social.media.dto.UserSummary;
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-level hot paths against a seeded H2 database, see {@link SeededDatabase} for the scale parameters.
+ * Writes are not undone, so the tables grow a little over a run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SocialServiceBenchmark {
+
+	@State(Scope.Thread)
+	public static class DeletableUser {
+		long id;
+
+		@Setup(Level.Invocation)
+		public void create(SeededDatabase db) {
+			id = db.socialService.saveUser(db.newUser()).getId();
+		}
+	}
+
+	// Baseline for getUsersPage: the unbounded findAll() the paged listing replaced
+	@Benchmark
+	public List<SocialUser> getAllUsers(SeededDatabase db) {
+		return db.userRepository.findAll();
+	}
+
+	@Benchmark
+	public CursorPage<UserSummary> getUsersPage(SeededDatabase db) {
+		return db.socialService.getUserSummaries(db.randomUserId(), 50);
+	}
+
+	@Benchmark
+	public SocialUser saveUser(SeededDatabase db) {
+		return db.socialService.saveUser(db.newUser());
+	}
+
+	@Benchmark
+	public DeleteResult deleteUser(SeededDatabase db, DeletableUser user) {
+		return db.socialService.deleteUser(user.id);
+	}
+
+	// Joins or leaves a random group through the entity collection, the way saveUser does it
+	@Benchmark
+	public SocialUser toggleGroupMembership(SeededDatabase db) {
+		return db.transactionTemplate.execute(status -> {
+			SocialUser user = db.userRepository.findById(db.randomUserId()).orElseThrow();
+			SocialGroup group = new SocialGroup();
+			group.setId(db.randomGroupId());
+			if (!user.getGroups().removeIf(g -> g.getId().equals(group.getId()))) {
+				user.getGroups().add(group);
+			}
+			return db.socialService.saveUser(user);
+		});
+	}
+
+	// The same join/leave through GroupService, straight on the user_group table
+	@Benchmark
+	public MembershipChange toggleGroupMembershipBulk(SeededDatabase db) {
+		List<Long> user = List.of(db.randomUserId());
+		long groupId = db.randomGroupId();
+		MembershipChange change = db.groupService.addMembers(groupId, user);
+		return change.getChanged() > 0 ? change : db.groupService.removeMembers(groupId, user);
+	}
+}
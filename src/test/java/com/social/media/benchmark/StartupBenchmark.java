@@ -0,0 +1,127 @@
+package com.social.media.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup time of MediaApplication, every run in a fresh JVM: time from launching the process until
+ * actuator/health answers (the instance takes traffic) and until the first data request answered
+ * (GET social/users/summary, which pays for what lazy initialization deferred). Median per mode.
+ * <p>
+ * Modes: the default startup and the {@code fast-start} profile from the classpath, then, when built,
+ * the extracted jar with the CDS archive ({@code mvn -Pcds package}) and with AOT as well
+ * ({@code mvn -Paot,cds package}).
+ * <p>
+ * Arguments: {@code [runs]}, default 3 runs per mode.
+ */
+public class StartupBenchmark {
+
+	private static final Duration TIMEOUT = Duration.ofMinutes(3);
+	private static final Path APPLICATION = Path.of("target", "application");
+	private static final String JAR = "media-0.0.1-SNAPSHOT.jar";
+
+	private record Mode(String name, List<String> command, String unavailable) {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+		String classpath = System.getProperty("java.class.path");
+		String jar = APPLICATION.resolve(JAR).toString();
+		String archive = "-XX:SharedArchiveFile=" + APPLICATION.resolve("application.jsa");
+		boolean cdsBuilt = Files.exists(APPLICATION.resolve("application.jsa"));
+		boolean aotBuilt = Files.exists(Path.of("target", "classes", "com", "social", "media", "MediaApplication__BeanFactoryRegistrations.class"));
+
+		List<Mode> modes = List.of(
+				new Mode("default", List.of(java, "-cp", classpath, "com.social.media.MediaApplication"), null),
+				new Mode("fast-start", List.of(java, "-cp", classpath, "com.social.media.MediaApplication",
+						"--spring.profiles.active=fast-start"), null),
+				new Mode("fast-start+cds", List.of(java, archive, "-Xlog:cds=off", "-jar", jar,
+						"--spring.profiles.active=fast-start"), cdsBuilt ? null : "run mvn -Pcds package first"),
+				new Mode("fast-start+cds+aot", List.of(java, archive, "-Xlog:cds=off", "-Dspring.aot.enabled=true", "-jar", jar,
+						"--spring.profiles.active=fast-start"), cdsBuilt && aotBuilt ? null : "run mvn -Paot,cds package first"));
+
+		List<String> results = new ArrayList<>();
+		for (Mode mode : modes) {
+			if (mode.unavailable() != null) {
+				results.add(String.format("%-20s skipped, %s", mode.name(), mode.unavailable()));
+				continue;
+			}
+			long[] ready = new long[runs];
+			long[] firstRequest = new long[runs];
+			for (int run = 0; run < runs; run++) {
+				long[] times = start(mode.command());
+				ready[run] = times[0];
+				firstRequest[run] = times[1];
+			}
+			results.add(String.format("%-20s ready %6d ms   first data request answered %6d ms", mode.name(), median(ready), median(firstRequest)));
+		}
+		System.out.printf("%n%d runs per mode, median time from process launch%n", runs);
+		results.forEach(System.out::println);
+	}
+
+	// Returns the milliseconds until health answered and until the first data request answered
+	private static long[] start(List<String> command) throws Exception {
+		int port = freePort();
+		List<String> full = new ArrayList<>(command);
+		full.addAll(List.of("--server.port=" + port, "--spring.main.banner-mode=off", "--logging.level.root=WARN"));
+		HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		String baseUrl = "http://localhost:" + port;
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(full).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+		try {
+			long deadline = start + TIMEOUT.toNanos();
+			while (!answers(client, baseUrl + "/actuator/health")) {
+				if (!process.isAlive() || System.nanoTime() > deadline) {
+					throw new IllegalStateException("Application didn't start: " + String.join(" ", command));
+				}
+				Thread.sleep(10);
+			}
+			long ready = System.nanoTime();
+			if (!answers(client, baseUrl + "/social/users/summary")) {
+				throw new IllegalStateException("First data request failed");
+			}
+			long firstRequest = System.nanoTime();
+			return new long[]{(ready - start) / 1_000_000, (firstRequest - start) / 1_000_000};
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private static boolean answers(HttpClient client, String url) throws InterruptedException {
+		try {
+			HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.discarding());
+			return response.statusCode() == 200;
+		} catch (IOException e) {
+			// Not listening yet
+			return false;
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+}
@@ -0,0 +1,62 @@
+package com.social.media.config;
+
+import com.social.media.dto.UserSummary;
+import com.social.media.models.SocialUser;
+import com.social.media.service.PostService;
+import com.social.media.service.SocialService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Two H2 databases: the usual primary and a second one standing in for a replica that hasn't replicated anything yet,
+// so what a read returns shows which one it went to
+@SpringBootTest(properties = {"social.replica.jdbc-url=" + ReadReplicaTests.REPLICA_URL, "social.replica.username=sa",
+		"social.replica.pool-name=social-replica-pool", "social.replica.maximum-pool-size=5"})
+class ReadReplicaTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+	static {
+		// Only the schema, replication is done by hand below
+		Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+	}
+
+	@Autowired
+	private SocialService socialService;
+
+	@Autowired
+	private PostService postService;
+
+	@Autowired
+	private HikariDataSource primaryDataSource;
+
+	@Autowired
+	private HikariDataSource replicaDataSource;
+
+	@Test
+	void readOnlyTransactionsReadFromTheReplica() {
+		long userId = socialService.saveUser(new SocialUser()).getId();
+
+		// Written to the primary only
+		assertThatThrownBy(() -> socialService.getUserStats(userId))
+				.isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+
+		new JdbcTemplate(replicaDataSource).update("insert into social_user (id) values (?)", userId);
+		assertThat(socialService.getUserStats(userId).getPostCount()).isZero();
+		assertThat(socialService.getUserSummaries(userId - 1, 1).getItems()).extracting(UserSummary::getId).containsExactly(userId);
+
+		// The write still finds the user on the primary, the replica lags behind until the next replication
+		postService.createPost(userId);
+		assertThat(postService.countPosts(userId)).isZero();
+		assertThat(new JdbcTemplate(primaryDataSource).queryForObject("select post_count from social_user where id = ?", Long.class, userId))
+				.isEqualTo(1L);
+	}
+}
@@ -0,0 +1,363 @@
+package com.social.media.controller;
+
+import com.social.media.models.Post;
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialProfile;
+import com.social.media.models.SocialUser;
+import com.social.media.repositories.GroupRepository;
+import com.social.media.repositories.SocialUserRepository;
+import com.social.media.service.CounterReconciler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "social.feed.max-group-size=2"})
+@AutoConfigureMockMvc
+class SocialControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private SocialUserRepository userRepository;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private CounterReconciler counterReconciler;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void listingUsersUsesConstantNumberOfStatements() throws Exception {
+		SocialGroup group = groupRepository.save(new SocialGroup());
+		for (int i = 0; i < 40; i++) {
+			SocialUser user = new SocialUser();
+			user.setSocialProfile(new SocialProfile());
+			for (int p = 0; p < 3; p++) {
+				Post post = new Post();
+				post.setSocialUser(user);
+				user.getPosts().add(post);
+			}
+			user.getGroups().add(group);
+			userRepository.save(user);
+		}
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		// Only this request counts, other tests list users as well
+		removeStatementsMeter("GET", "/social/users");
+
+		mockMvc.perform(get("/social/users").param("limit", "40"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(40))
+				.andExpect(jsonPath("$.items[0].postCount").isNumber())
+				.andExpect(jsonPath("$.items[0].groupIds").isArray());
+
+		// 1 page query (ids, descriptions, post counts) + 1 query for the group ids of the page,
+		// where loading the entities and their collections row by row would be 1 + 3 * 40
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+
+		DistributionSummary perRequest = meterRegistry.get("social.sql.statements").tag("uri", "/social/users").tag("method", "GET").summary();
+		assertThat(perRequest.count()).isEqualTo(1);
+		assertThat(perRequest.max()).isEqualTo(statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void jdbcTemplateStatementsAreCounted() throws Exception {
+		long groupId = idOf(mockMvc.perform(post("/social/groups")).andReturn().getResponse().getContentAsString());
+		long reader = createUserWithPost(groupId);
+		createUserWithPost(groupId);
+		long joiner = idOf(mockMvc.perform(post("/social/users").contentType(MediaType.APPLICATION_JSON).content("{}"))
+				.andReturn().getResponse().getContentAsString());
+		removeStatementsMeter("GET", "/social/users/{userId}/feed");
+		removeStatementsMeter("POST", "/social/groups/{groupId}/members");
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		// The feed is one JdbcTemplate query, Hibernate prepares nothing
+		statistics.clear();
+		mockMvc.perform(get("/social/users/{userId}/feed", reader)).andExpect(jsonPath("$.length()").value(1));
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(meterRegistry.get("social.sql.statements").tag("uri", "/social/users/{userId}/feed").summary().max()).isEqualTo(1);
+
+		// A join: Hibernate's group lookup plus the JdbcTemplate insert and counter updates
+		statistics.clear();
+		mockMvc.perform(post("/social/groups/{groupId}/members", groupId).contentType(MediaType.APPLICATION_JSON).content("[" + joiner + "]"))
+				.andExpect(jsonPath("$.changed").value(1));
+		assertThat(meterRegistry.get("social.sql.statements").tag("uri", "/social/groups/{groupId}/members").summary().max())
+				.isGreaterThan(statistics.getPrepareStatementCount() + 2);
+	}
+
+	@Test
+	void exportWritesEveryUserOnceInShortSessions() throws Exception {
+		long groupId = idOf(mockMvc.perform(post("/social/groups")).andReturn().getResponse().getContentAsString());
+		String user = "{\"socialProfile\": {\"description\": \"exported\"}, \"posts\": [{}, {}], \"groups\": [{\"id\": " + groupId + "}]}";
+		String users = IntStream.range(0, 150).mapToObj(i -> user).collect(Collectors.joining(", ", "[", "]"));
+		mockMvc.perform(post("/social/users/bulk").contentType(MediaType.APPLICATION_JSON).content(users)).andExpect(status().isCreated());
+		long userCount = userRepository.count();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		MvcResult export = mockMvc.perform(get("/social/users/export")).andExpect(request().asyncStarted()).andReturn();
+		String ndjson = mockMvc.perform(asyncDispatch(export))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		ObjectMapper json = new ObjectMapper();
+		List<JsonNode> lines = new ArrayList<>();
+		for (String line : ndjson.split("\n")) {
+			lines.add(json.readTree(line));
+		}
+		assertThat(lines).hasSize((int) userCount);
+		assertThat(lines.stream().map(line -> line.get("id").asLong()).distinct().count()).isEqualTo(userCount);
+		// Users of every chunk come with their collections, loaded in the chunk's own session
+		List<JsonNode> ours = lines.stream().filter(line -> line.path("socialProfile").path("description").asText().equals("exported")).toList();
+		assertThat(ours).hasSize(150).allSatisfy(line -> {
+			assertThat(line.get("posts")).hasSize(2);
+			assertThat(line.get("groups").get(0).get("id").asLong()).isEqualTo(groupId);
+		});
+		// A persistence context per chunk of 100, cleared by its transaction's end, instead of one for the whole export
+		assertThat(statistics.getSessionOpenCount()).isGreaterThanOrEqualTo(userCount / 100 + 1);
+	}
+
+	@Test
+	void cursorPagesContinueWithoutGapsOrDuplicates() throws Exception {
+		long groupId = idOf(mockMvc.perform(post("/social/groups")).andReturn().getResponse().getContentAsString());
+		List<Long> memberIds = new ArrayList<>();
+		for (int i = 0; i < 23; i++) {
+			memberIds.add(createUserWithPost(groupId));
+		}
+		long author = memberIds.get(0);
+		List<Long> postIds = new ArrayList<>();
+		postIds.add(JsonPath.parse(mockMvc.perform(get("/social/users/{userId}/posts", author)).andReturn().getResponse().getContentAsString())
+				.read("$.items[0].id", Long.class));
+		for (int i = 0; i < 5; i++) {
+			postIds.add(idOf(mockMvc.perform(post("/social/users/{userId}/posts", author)).andReturn().getResponse().getContentAsString()));
+		}
+
+		// 23 members in pages of 5, 6 posts in pages of 4, and in one page of exactly 6
+		assertThat(pageThrough("/social/groups/{id}/members", groupId, 5)).containsExactlyElementsOf(memberIds);
+		assertThat(pageThrough("/social/users/{id}/posts", author, 4)).containsExactlyElementsOf(postIds);
+		assertThat(pageThrough("/social/users/{id}/posts", author, 6)).containsExactlyElementsOf(postIds);
+	}
+
+	@Test
+	void streamEmitsEveryUserInOrderAndCompletes() throws Exception {
+		long groupId = idOf(mockMvc.perform(post("/social/groups")).andReturn().getResponse().getContentAsString());
+		for (int i = 0; i < 10; i++) {
+			createUserWithPost(groupId);
+		}
+		List<Long> userIds = jdbcTemplate.queryForList("select id from social_user order by id", Long.class);
+
+		// Pages of 7, so the stream spans several keyset reads and ends on a partial one
+		MvcResult stream = mockMvc.perform(get("/social/users/stream").param("pageSize", "7").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted()).andReturn();
+		// Set once the Flux completed, times out (and fails) if it never terminates
+		stream.getAsyncResult(30_000);
+		String ndjson = stream.getResponse().getContentAsString();
+
+		ObjectMapper json = new ObjectMapper();
+		List<Long> streamed = new ArrayList<>();
+		for (String line : ndjson.split("\n")) {
+			streamed.add(json.readTree(line).get("id").asLong());
+		}
+		assertThat(streamed).containsExactlyElementsOf(userIds);
+	}
+
+	@Test
+	void countersFollowPostsAndMemberships() throws Exception {
+		long groupId = idOf(mockMvc.perform(post("/social/groups")).andExpect(status().isCreated()).andReturn().getResponse().getContentAsString());
+		String user = "{\"socialProfile\": {\"description\": \"counted\"}, \"posts\": [{}, {}], \"groups\": [{\"id\": " + groupId + "}]}";
+		long userId = idOf(mockMvc.perform(post("/social/users").contentType(MediaType.APPLICATION_JSON).content(user))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.postCount").value(2))
+				.andReturn().getResponse().getContentAsString());
+
+		long postId = idOf(mockMvc.perform(post("/social/users/{userId}/posts", userId)).andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString());
+		mockMvc.perform(delete("/social/users/{userId}/posts/{postId}", userId, postId)).andExpect(status().isOk());
+		mockMvc.perform(post("/social/users/{userId}/posts", userId)).andExpect(status().isCreated());
+		long otherGroupId = idOf(mockMvc.perform(post("/social/groups")).andReturn().getResponse().getContentAsString());
+		mockMvc.perform(post("/social/groups/{groupId}/members", otherGroupId).contentType(MediaType.APPLICATION_JSON).content("[" + userId + "]"))
+				.andExpect(jsonPath("$.changed").value(1));
+		// already a member, changes nothing
+		mockMvc.perform(post("/social/groups/{groupId}/members", otherGroupId).contentType(MediaType.APPLICATION_JSON).content("[" + userId + "]"))
+				.andExpect(jsonPath("$.changed").value(0));
+
+		mockMvc.perform(get("/social/users/{userId}/stats", userId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.postCount").value(3))
+				.andExpect(jsonPath("$.groupCount").value(2));
+		mockMvc.perform(get("/social/groups/{groupId}/members/count", otherGroupId))
+				.andExpect(jsonPath("$").value(1));
+		assertThat(counterReconciler.reconcile()).isZero();
+	}
+
+	@Test
+	void durableIngestAnswersAfterTheBatchCommitted() throws Exception {
+		long userId = idOf(mockMvc.perform(post("/social/users").contentType(MediaType.APPLICATION_JSON).content("{}"))
+				.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString());
+
+		MvcResult durable = mockMvc.perform(post("/social/users/{userId}/posts/ingest", userId).param("ack", "DURABLE"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(durable))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.id").isNumber());
+		// Committed, so the counter already includes it
+		mockMvc.perform(get("/social/users/{userId}/posts/count", userId)).andExpect(jsonPath("$").value(1));
+
+		MvcResult unknownUser = mockMvc.perform(post("/social/users/{userId}/posts/ingest", Long.MAX_VALUE).param("ack", "DURABLE"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(unknownUser)).andExpect(status().isBadRequest());
+		assertThat(counterReconciler.reconcile()).isZero();
+	}
+
+	@Test
+	void feedHasThePostsOfCoMembersInSmallGroups() throws Exception {
+		long smallGroupId = idOf(mockMvc.perform(post("/social/groups")).andReturn().getResponse().getContentAsString());
+		long bigGroupId = idOf(mockMvc.perform(post("/social/groups")).andReturn().getResponse().getContentAsString());
+		long reader = createUserWithPost(smallGroupId, bigGroupId);
+		long smallGroupMember = createUserWithPost(smallGroupId);
+		long bigGroupMember = createUserWithPost(bigGroupId);
+		createUserWithPost(bigGroupId);
+
+		// The big group has 3 members, above social.feed.max-group-size
+		mockMvc.perform(get("/social/users/{userId}/feed", reader))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].userId").value(smallGroupMember))
+				.andExpect(jsonPath("$[0].createdAt").isString());
+
+		// Now the small group is too big as well, the cached feed must not survive the change
+		mockMvc.perform(post("/social/groups/{groupId}/members", smallGroupId).contentType(MediaType.APPLICATION_JSON).content("[" + bigGroupMember + "]"))
+				.andExpect(jsonPath("$.changed").value(1));
+		mockMvc.perform(get("/social/users/{userId}/feed", reader))
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	void usersAreNegotiatedAsSmileAndCbor() throws Exception {
+		ObjectMapper json = new ObjectMapper();
+		ObjectMapper smile = new ObjectMapper(new SmileFactory());
+		ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+		long groupId = idOf(mockMvc.perform(post("/social/groups")).andReturn().getResponse().getContentAsString());
+		byte[] user = cbor.writeValueAsBytes(json.readTree("{\"socialProfile\": {\"description\": \"binary\"}, \"posts\": [{}], \"groups\": [{\"id\": " + groupId + "}]}"));
+
+		// CBOR in, Smile out
+		byte[] created = mockMvc.perform(post("/social/users").contentType(MediaType.APPLICATION_CBOR).content(user).accept("application/x-jackson-smile"))
+				.andExpect(status().isCreated())
+				.andExpect(content().contentType("application/x-jackson-smile"))
+				.andReturn().getResponse().getContentAsByteArray();
+		long userId = smile.readTree(created).get("id").asLong();
+
+		// The same page in every format decodes to the same tree, JSON stays the default
+		String page = mockMvc.perform(get("/social/users").param("after", String.valueOf(userId - 1)).param("limit", "1"))
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getContentAsString();
+		byte[] smilePage = mockMvc.perform(get("/social/users").param("after", String.valueOf(userId - 1)).param("limit", "1").accept("application/x-jackson-smile"))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray();
+		byte[] cborPage = mockMvc.perform(get("/social/users").param("after", String.valueOf(userId - 1)).param("limit", "1").accept(MediaType.APPLICATION_CBOR))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray();
+
+		JsonNode expected = json.readTree(page);
+		assertThat(expected.at("/items/0/description").asText()).isEqualTo("binary");
+		assertThat(smile.readTree(smilePage)).isEqualTo(expected);
+		assertThat(cbor.readTree(cborPage)).isEqualTo(expected);
+		assertThat(smilePage.length).isLessThan(page.getBytes(StandardCharsets.UTF_8).length);
+	}
+
+	@Test
+	void feedOnlyHasPostsOfTheWindow() throws Exception {
+		long groupId = idOf(mockMvc.perform(post("/social/groups")).andReturn().getResponse().getContentAsString());
+		long reader = createUserWithPost(groupId);
+		long member = createUserWithPost(groupId);
+		jdbcTemplate.update("update post set created_at = ? where user_id = ?",
+				OffsetDateTime.now(ZoneOffset.UTC).minusDays(8), member);
+		long recentPostId = idOf(mockMvc.perform(post("/social/users/{userId}/posts", member)).andReturn().getResponse().getContentAsString());
+
+		// social.feed.window is 7 days
+		mockMvc.perform(get("/social/users/{userId}/feed", reader))
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].postId").value(recentPostId));
+	}
+
+	// Follows nextCursor from the first page to the one without a cursor, every page before it is full
+	private List<Long> pageThrough(String uri, long id, int limit) throws Exception {
+		List<Long> ids = new ArrayList<>();
+		String after = null;
+		do {
+			String page = mockMvc.perform(get(uri, id).param("limit", String.valueOf(limit)).param("after", after))
+					.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+			List<Number> items = JsonPath.read(page, "$.items[*].id");
+			Number cursor = JsonPath.read(page, "$.nextCursor");
+			if (cursor != null) {
+				assertThat(items).hasSize(limit);
+				assertThat(cursor.longValue()).isEqualTo(items.get(limit - 1).longValue());
+			}
+			items.forEach(item -> ids.add(item.longValue()));
+			after = cursor == null ? null : cursor.toString();
+		} while (after != null);
+		return ids;
+	}
+
+	private void removeStatementsMeter(String method, String uri) {
+		DistributionSummary earlier = meterRegistry.find("social.sql.statements").tag("method", method).tag("uri", uri).summary();
+		if (earlier != null) {
+			meterRegistry.remove(earlier);
+		}
+	}
+
+	private long createUserWithPost(long... groupIds) throws Exception {
+		String groups = Arrays.stream(groupIds).mapToObj(id -> "{\"id\": " + id + "}").collect(Collectors.joining(", "));
+		String user = "{\"posts\": [{}], \"groups\": [" + groups + "]}";
+		return idOf(mockMvc.perform(post("/social/users").contentType(MediaType.APPLICATION_JSON).content(user))
+				.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString());
+	}
+
+	private static long idOf(String json) {
+		return ((Number) JsonPath.read(json, "$.id")).longValue();
+	}
+
+}
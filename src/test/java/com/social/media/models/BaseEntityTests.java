@@ -0,0 +1,41 @@
+package com.social.media.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BaseEntityTests {
+
+	@Test
+	void equalityIsByClassAndId() {
+		SocialUser user = new SocialUser();
+		user.setId(7L);
+		SocialUser sameRow = new SocialUser();
+		sameRow.setId(7L);
+		SocialGroup group = new SocialGroup();
+		group.setId(7L);
+
+		assertThat(user).isEqualTo(sameRow).hasSameHashCodeAs(sameRow).isNotEqualTo(group);
+		assertThat(new SocialUser()).isNotEqualTo(new SocialUser());
+	}
+
+	@Test
+	void hashingDoesNotWalkTheGraph() {
+		SocialUser user = new SocialUser();
+		user.setSocialProfile(new SocialProfile());
+		for (int i = 0; i < 3; i++) {
+			Post post = new Post();
+			post.setSocialUser(user);
+			user.getPosts().add(post);
+		}
+		// back-references on both sides, @Data recursed here until the stack overflowed
+		Set<SocialUser> users = new HashSet<>();
+		users.add(user);
+		assertThat(users).contains(user);
+		assertThat(user.toString()).isEqualTo("SocialUser(id=null, postCount=0, groupCount=0)");
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.social.media.service;
+
+import com.social.media.dto.Recommendation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoMembershipScorerTests {
+
+	private final CoMembershipScorer scorer = new CoMembershipScorer(ForkJoinPool.commonPool());
+
+	@Test
+	void ranksBySharedGroupsThenId() {
+		MembershipIndex index = new MembershipIndex();
+		index.addMembers(1, List.of(1L, 2L, 3L, 4L));
+		index.addMembers(2, List.of(1L, 3L, 4L));
+		index.addMembers(3, List.of(1L, 4L));
+		index.addMembers(4, List.of(2L, 5L));
+
+		assertThat(scorer.topK(index, 1, 2, 100))
+				.containsExactly(new Recommendation(4, 3), new Recommendation(3, 2));
+		// group 1 is too big to count
+		assertThat(scorer.topK(index, 1, 10, 3))
+				.containsExactly(new Recommendation(4, 2), new Recommendation(3, 1));
+		assertThat(scorer.topK(index, 99, 10, 100)).isEmpty();
+	}
+
+	@Test
+	void splitRangesScoreLikeOneRange() {
+		// Enough members for several fork-join leaves: users divisible by 3 share 2 groups with user 0
+		MembershipIndex index = new MembershipIndex();
+		int users = CoMembershipScorer.LEAF_SIZE * 4;
+		index.addMembers(1, LongStream.range(0, users).boxed().toList());
+		List<Long> everyThird = new ArrayList<>(LongStream.range(0, users).filter(id -> id % 3 == 0).boxed().toList());
+		index.addMembers(2, everyThird);
+
+		List<Recommendation> top = scorer.topK(index, 0, 3, users);
+		assertThat(top).containsExactly(new Recommendation(3, 2), new Recommendation(6, 2), new Recommendation(9, 2));
+	}
+
+}
@@ -0,0 +1,255 @@
+package com.social.media.service;
+
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialUser;
+import com.social.media.repositories.GroupRepository;
+import com.social.media.repositories.SocialUserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many writers on the memberships of one group at the same time
+@Slf4j
+@SpringBootTest
+class ConcurrentMembershipTests {
+
+	private static final int THREADS = 8;
+	private static final int USERS_PER_THREAD = 50;
+
+	@Autowired
+	private GroupService groupService;
+
+	@Autowired
+	private SocialService socialService;
+
+	@Autowired
+	private SocialUserRepository userRepository;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private MembershipIndex membershipIndex;
+
+	@Autowired
+	private CounterReconciler counterReconciler;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void parallelJoinsOfOneGroupLoseNothing() throws Exception {
+		long groupId = groupService.createGroup().getId();
+		List<SocialUser> users = new ArrayList<>();
+		for (int i = 0; i < THREADS * USERS_PER_THREAD; i++) {
+			users.add(new SocialUser());
+		}
+		List<Long> userIds = userRepository.saveAll(users).stream().map(SocialUser::getId).toList();
+
+		// Every thread joins its own users one at a time, then leaves with every second one
+		long start = System.nanoTime();
+		List<Integer> changes = runConcurrently(thread -> {
+			List<Long> mine = userIds.subList(thread * USERS_PER_THREAD, (thread + 1) * USERS_PER_THREAD);
+			int changed = 0;
+			for (Long userId : mine) {
+				changed += groupService.addMembers(groupId, List.of(userId)).getChanged();
+			}
+			for (int i = 0; i < mine.size(); i += 2) {
+				changed += groupService.removeMembers(groupId, List.of(mine.get(i))).getChanged();
+			}
+			return changed;
+		});
+		double seconds = (System.nanoTime() - start) / 1e9;
+		int total = changes.stream().mapToInt(Integer::intValue).sum();
+		log.info("{} membership changes from {} threads in {} ms ({}/s)", total, THREADS, Math.round(seconds * 1000),
+				Math.round(total / seconds));
+
+		int members = THREADS * USERS_PER_THREAD / 2;
+		assertThat(total).isEqualTo(THREADS * USERS_PER_THREAD * 3 / 2);
+		assertThat(groupService.countMembers(groupId)).isEqualTo(members);
+		assertThat(membershipIndex.membersOf(groupId)).hasSize(members);
+		assertThat(counterReconciler.reconcile()).isZero();
+		// The writers only inserted member_count deltas, folding them keeps the count
+		assertThat(counterReconciler.foldMemberCounts()).isPositive();
+		assertThat(groupService.countMembers(groupId)).isEqualTo(members);
+		assertThat(counterReconciler.reconcile()).isZero();
+		// No conflicts between the writers: the group's version never moved
+		assertThat(groupRepository.findById(groupId)).get().extracting(SocialGroup::getVersion).isEqualTo(0L);
+		// A joined and left user's version moved twice, its groups changed twice
+		assertThat(userRepository.findVersion(userIds.get(0))).contains(2L);
+	}
+
+	@Test
+	void parallelJoinsOfTheSameUsersAddEveryMembershipOnce() throws Exception {
+		long groupId = groupService.createGroup().getId();
+		List<SocialUser> users = new ArrayList<>();
+		for (int i = 0; i < USERS_PER_THREAD; i++) {
+			users.add(new SocialUser());
+		}
+		List<Long> userIds = userRepository.saveAll(users).stream().map(SocialUser::getId).toList();
+
+		// Every thread adds the same users, the inserts race on the user_group primary key
+		CountDownLatch ready = new CountDownLatch(THREADS);
+		List<Integer> changes = runConcurrently(thread -> {
+			ready.countDown();
+			ready.await();
+			int changed = 0;
+			for (Long userId : userIds) {
+				changed += groupService.addMembers(groupId, List.of(userId)).getChanged();
+			}
+			return changed;
+		});
+
+		assertThat(changes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(USERS_PER_THREAD);
+		assertThat(groupService.countMembers(groupId)).isEqualTo(USERS_PER_THREAD);
+		assertThat(counterReconciler.reconcile()).isZero();
+	}
+
+	@Test
+	void overlappingJoinsAndLeavesLeaveTheIndexAsTheTable() throws Exception {
+		List<Long> groupIds = List.of(groupService.createGroup().getId(), groupService.createGroup().getId());
+		List<Long> userIds = userRepository.saveAll(List.of(new SocialUser(), new SocialUser(), new SocialUser()))
+				.stream().map(SocialUser::getId).toList();
+
+		// Every thread adds and removes the same few pairs, so adds and removes of one pair overlap all the time
+		runConcurrently(thread -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int i = 0; i < 100; i++) {
+				Long groupId = groupIds.get(random.nextInt(groupIds.size()));
+				List<Long> user = List.of(userIds.get(random.nextInt(userIds.size())));
+				if (random.nextBoolean()) {
+					groupService.addMembers(groupId, user);
+				} else {
+					groupService.removeMembers(groupId, user);
+				}
+			}
+			return 0;
+		});
+
+		for (Long groupId : groupIds) {
+			long[] members = jdbcTemplate.queryForList("select user_id from user_group where group_id = ? order by user_id", Long.class, groupId)
+					.stream().mapToLong(Long::longValue).toArray();
+			assertThat(membershipIndex.membersOf(groupId)).as("group %d", groupId).containsExactly(members);
+			assertThat(groupService.countMembers(groupId)).isEqualTo(members.length);
+		}
+		for (Long userId : userIds) {
+			long[] groups = jdbcTemplate.queryForList("select group_id from user_group where user_id = ? order by group_id", Long.class, userId)
+					.stream().mapToLong(Long::longValue).toArray();
+			assertThat(membershipIndex.groupsOf(userId)).as("user %d", userId).containsExactly(groups);
+		}
+		assertThat(counterReconciler.reconcile()).isZero();
+	}
+
+	@Test
+	void rebuildsDuringJoinsLoseNothing() throws Exception {
+		long groupId = groupService.createGroup().getId();
+		List<SocialUser> users = new ArrayList<>();
+		for (int i = 0; i < (THREADS - 1) * USERS_PER_THREAD; i++) {
+			users.add(new SocialUser());
+		}
+		List<Long> userIds = userRepository.saveAll(users).stream().map(SocialUser::getId).toList();
+
+		// One thread rebuilds the index over and over while the others join their users
+		runConcurrently(thread -> {
+			if (thread == 0) {
+				for (int i = 0; i < 20; i++) {
+					membershipIndex.rebuild();
+				}
+				return 0;
+			}
+			for (Long userId : userIds.subList((thread - 1) * USERS_PER_THREAD, thread * USERS_PER_THREAD)) {
+				groupService.addMembers(groupId, List.of(userId));
+			}
+			return 0;
+		});
+
+		assertThat(membershipIndex.membersOf(groupId)).hasSize(userIds.size());
+		assertThat(membershipIndex.groupsOf(userIds.get(userIds.size() - 1))).containsExactly(groupId);
+	}
+
+	@Test
+	void staleSavesOfOneUserConflict() throws Exception {
+		List<Long> groupIds = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			groupIds.add(groupService.createGroup().getId());
+		}
+		SocialUser created = socialService.saveUser(new SocialUser());
+		long version = created.getVersion();
+
+		// Every thread read the same version and saves a different group set
+		CountDownLatch ready = new CountDownLatch(THREADS);
+		List<Long> saved = runConcurrently(thread -> {
+			SocialUser copy = new SocialUser();
+			copy.setId(created.getId());
+			copy.setVersion(version);
+			SocialGroup group = new SocialGroup();
+			group.setId(groupIds.get(thread));
+			copy.getGroups().add(group);
+			ready.countDown();
+			ready.await();
+			try {
+				socialService.saveUser(copy);
+				return groupIds.get(thread);
+			} catch (ResponseStatusException e) {
+				assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+				return null;
+			}
+		});
+
+		List<Long> winners = saved.stream().filter(groupId -> groupId != null).toList();
+		assertThat(winners).hasSize(1);
+		assertThat(userRepository.findGroupIds(created.getId())).containsExactly(winners.get(0));
+
+		// A join through GroupService also makes the version read before it stale
+		Long otherGroupId = groupIds.stream().filter(groupId -> !groupId.equals(winners.get(0))).findFirst().orElseThrow();
+		assertThat(groupService.addMembers(otherGroupId, List.of(created.getId())).getChanged()).isEqualTo(1);
+		SocialUser stale = new SocialUser();
+		stale.setId(created.getId());
+		stale.setVersion(version + 1);
+		assertThat(userRepository.findVersion(created.getId())).contains(version + 2);
+		try {
+			socialService.saveUser(stale);
+			throw new AssertionError("stale save succeeded");
+		} catch (ResponseStatusException e) {
+			assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+		}
+	}
+
+	private <T> List<T> runConcurrently(ThreadTask<T> task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<T>> futures = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				int index = thread;
+				futures.add(executor.submit((Callable<T>) () -> task.run(index)));
+			}
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures) {
+				results.add(future.get(60, TimeUnit.SECONDS));
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private interface ThreadTask<T> {
+		T run(int thread) throws Exception;
+	}
+}
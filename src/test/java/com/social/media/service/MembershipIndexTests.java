@@ -0,0 +1,127 @@
+package com.social.media.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MembershipIndexTests {
+
+	@Test
+	void setOperationsMergeSortedArrays() {
+		long[] a = {1, 3, 5, 7, 9};
+		long[] b = {3, 4, 5, 10};
+		assertThat(MembershipIndex.intersect(a, b)).containsExactly(3, 5);
+		assertThat(MembershipIndex.union(a, b)).containsExactly(1, 3, 4, 5, 7, 9, 10);
+		assertThat(MembershipIndex.difference(a, b)).containsExactly(1, 7, 9);
+
+		// the binary search path, one side much smaller than the other
+		long[] big = new long[1000];
+		for (int i = 0; i < big.length; i++) {
+			big[i] = i * 2;
+		}
+		assertThat(MembershipIndex.intersect(new long[]{4, 5, 1998, 2000}, big)).containsExactly(4, 1998);
+	}
+
+	@Test
+	void updatesKeepBothDirectionsInSync() {
+		MembershipIndex index = new MembershipIndex();
+		index.addMembers(10, List.of(3L, 1L, 2L));
+		index.addMembers(20, List.of(2L));
+		index.setGroups(1, List.of(20L, 30L));
+		index.removeMembers(10, List.of(2L));
+
+		assertThat(index.membersOf(10)).containsExactly(3);
+		assertThat(index.membersOf(20)).containsExactly(1, 2);
+		assertThat(index.membersOf(30)).containsExactly(1);
+		assertThat(index.groupsOf(1)).containsExactly(20, 30);
+		assertThat(index.groupsOf(2)).containsExactly(20);
+
+		index.removeUsers(List.of(1L, 2L));
+		assertThat(index.membersOf(20)).isEmpty();
+		assertThat(index.groupsOf(1)).isEmpty();
+	}
+
+	@Test
+	void bulkSetGroupsAndInvalidation() {
+		MembershipIndex index = new MembershipIndex();
+		index.setGroups(Map.of(1L, List.of(10L), 2L, List.of(10L, 20L), 3L, List.of(20L)));
+		index.setGroups(Map.of(2L, List.of(20L), 4L, List.of(10L)));
+		assertThat(index.membersOf(10)).containsExactly(1, 4);
+		assertThat(index.membersOf(20)).containsExactly(2, 3);
+		assertThat(index.groupsOf(2)).containsExactly(20);
+
+		// User 5 left group 10: its own entry, and those of the members of 10, go
+		MembershipsChangedEvent event = new MembershipsChangedEvent(List.of(10L), List.of(5L));
+		Map<Long, String> small = new HashMap<>(Map.of(1L, "", 2L, "", 3L, "", 4L, "", 5L, "", 6L, ""));
+		index.evictAffected(small, event);
+		assertThat(small).containsOnlyKeys(2L, 3L, 6L);
+
+		// More members than cached entries: the cache's keys are walked instead
+		index.addMembers(10, LongStream.range(100, 200).boxed().toList());
+		Map<Long, String> big = new HashMap<>(Map.of(1L, "", 3L, "", 150L, "", 500L, ""));
+		index.evictAffected(big, event);
+		assertThat(big).containsOnlyKeys(3L, 500L);
+	}
+
+	@Test
+	void deferredBuildStaysNotReadyAndRebuildsInvalidateEverything() {
+		MembershipIndex index = new MembershipIndex();
+		index.deferBuild();
+		index.onApplicationReady();
+		assertThat(index.isReady()).isFalse();
+
+		Map<Long, String> cache = new HashMap<>(Map.of(1L, "", 2L, ""));
+		index.evictAffected(cache, MembershipsChangedEvent.all());
+		assertThat(cache).isEmpty();
+	}
+
+	@Test
+	void concurrentUpdatesOfTheSameUsersKeepBothDirectionsInSync() throws Exception {
+		MembershipIndex index = new MembershipIndex();
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					for (int i = 0; i < 20_000; i++) {
+						long userId = random.nextLong(4);
+						long groupId = random.nextLong(6);
+						switch (random.nextInt(3)) {
+							case 0 -> index.addMembers(groupId, List.of(userId));
+							case 1 -> index.removeMembers(groupId, List.of(userId));
+							default -> index.setGroups(userId, List.of(groupId, random.nextLong(6)));
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		for (long userId = 0; userId < 4; userId++) {
+			for (long groupId = 0; groupId < 6; groupId++) {
+				boolean member = Arrays.binarySearch(index.membersOf(groupId), userId) >= 0;
+				assertThat(Arrays.binarySearch(index.groupsOf(userId), groupId) >= 0)
+						.as("user %d, group %d", userId, groupId).isEqualTo(member);
+			}
+		}
+	}
+
+}
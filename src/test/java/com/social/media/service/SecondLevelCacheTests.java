@@ -0,0 +1,83 @@
+package com.social.media.service;
+
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialUser;
+import com.social.media.repositories.GroupRepository;
+import com.social.media.repositories.SocialUserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CollectionStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The cached collections (SocialUser.groups, SocialGroup.socialUsers) after the writes that change them behind
+// Hibernate's back: every read is in a new session, so it sees whatever the second-level cache holds
+@SpringBootTest
+class SecondLevelCacheTests {
+
+	@Autowired
+	private SocialService socialService;
+
+	@Autowired
+	private GroupService groupService;
+
+	@Autowired
+	private SocialUserRepository userRepository;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void membershipChangesAndDeletesEvictTheCachedCollections() {
+		long groupId = groupService.createGroup().getId();
+		long otherGroupId = groupService.createGroup().getId();
+		SocialUser user = new SocialUser();
+		SocialGroup group = new SocialGroup();
+		group.setId(groupId);
+		user.getGroups().add(group);
+		long userId = socialService.saveUser(user).getId();
+
+		// The second read is served from the cache, so the reads below would see stale collections without the evictions
+		assertThat(groupIdsOf(userId)).containsExactly(groupId);
+		CollectionStatistics userGroups = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+				.getCollectionStatistics(SecondLevelCache.USER_GROUPS);
+		long hits = userGroups.getCacheHitCount();
+		assertThat(groupIdsOf(userId)).containsExactly(groupId);
+		assertThat(userGroups.getCacheHitCount()).isEqualTo(hits + 1);
+		assertThat(memberIdsOf(groupId)).containsExactly(userId);
+
+		groupService.addMembers(otherGroupId, List.of(userId));
+		assertThat(groupIdsOf(userId)).containsExactlyInAnyOrder(groupId, otherGroupId);
+		assertThat(memberIdsOf(otherGroupId)).containsExactly(userId);
+
+		groupService.removeMembers(groupId, List.of(userId));
+		assertThat(groupIdsOf(userId)).containsExactly(otherGroupId);
+		assertThat(memberIdsOf(groupId)).isEmpty();
+
+		socialService.deleteUsers(List.of(userId));
+		assertThat(memberIdsOf(otherGroupId)).isEmpty();
+		assertThat(userRepository.existsById(userId)).isFalse();
+	}
+
+	private List<Long> groupIdsOf(long userId) {
+		return transactionTemplate.execute(status -> userRepository.findById(userId).orElseThrow()
+				.getGroups().stream().map(SocialGroup::getId).toList());
+	}
+
+	private List<Long> memberIdsOf(long groupId) {
+		return transactionTemplate.execute(status -> groupRepository.findById(groupId).orElseThrow()
+				.getSocialUsers().stream().map(SocialUser::getId).toList());
+	}
+}
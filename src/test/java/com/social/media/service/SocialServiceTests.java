@@ -0,0 +1,154 @@
+package com.social.media.service;
+
+import com.social.media.config.SqlStatementCounter;
+import com.social.media.dto.DeleteResult;
+import com.social.media.dto.ImportResult;
+import com.social.media.models.Post;
+import com.social.media.models.SocialGroup;
+import com.social.media.models.SocialProfile;
+import com.social.media.models.SocialUser;
+import com.social.media.repositories.SocialUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The bulk paths of SocialService (export, import, purge), called directly, without a request around them
+@SpringBootTest
+class SocialServiceTests {
+
+	@Autowired
+	private SocialService socialService;
+
+	@Autowired
+	private GroupService groupService;
+
+	@Autowired
+	private SocialUserRepository userRepository;
+
+	@Autowired
+	private SqlStatementCounter sqlStatementCounter;
+
+	@Autowired
+	private MembershipIndex membershipIndex;
+
+	@Autowired
+	private CounterReconciler counterReconciler;
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	@Test
+	void exportLoadsEveryChunkWithAConstantNumberOfStatements() throws Exception {
+		List<Long> groupIds = createGroups(3);
+		importUsers(250, 3, groupIds);
+		long users = userRepository.count();
+
+		sqlStatementCounter.start();
+		long exported = socialService.exportUsers(OutputStream.nullOutputStream());
+		long statements = sqlStatementCounter.stop();
+
+		assertThat(exported).isEqualTo(users);
+		// Per chunk: the page of users with their profiles, then one "in (...)" query each for the posts and the
+		// groups of the whole chunk (@BatchSize), where initializing them user by user would be 2 per user
+		long chunks = users / SocialService.EXPORT_CHUNK_SIZE + 1;
+		assertThat(statements).isLessThanOrEqualTo(3 * chunks);
+	}
+
+	@Test
+	void importWritesEveryChunkWithItsCountersAndIndex() {
+		List<Long> groupIds = createGroups(2);
+		List<SocialUser> users = newUsers(600, 2, groupIds);
+
+		ImportResult result = socialService.importUsers(users);
+
+		// Two chunks of IMPORT_CHUNK_SIZE, every row of both committed
+		assertThat(result.getUsers()).isEqualTo(600);
+		// users + profiles + posts + user_group rows
+		assertThat(result.getRows()).isEqualTo(600 * (1 + 1 + 2 + 2));
+		List<Long> userIds = users.stream().map(SocialUser::getId).toList();
+		assertThat(userIds).doesNotContainNull().doesNotHaveDuplicates();
+		Map<String, List<Long>> ids = Map.of("userIds", userIds);
+		assertThat(countWhere("social_user", "id in (:userIds) and post_count = 2 and group_count = 2", ids)).isEqualTo(600);
+		assertThat(countWhere("social_profile", "social_user in (:userIds)", ids)).isEqualTo(600);
+		assertThat(countWhere("post", "user_id in (:userIds)", ids)).isEqualTo(1200);
+		assertThat(countWhere("user_group", "user_id in (:userIds)", ids)).isEqualTo(1200);
+		for (Long groupId : groupIds) {
+			assertThat(groupService.countMembers(groupId)).isEqualTo(600);
+			assertThat(membershipIndex.membersOf(groupId)).containsExactly(userIds.stream().mapToLong(Long::longValue).sorted().toArray());
+		}
+		assertThat(membershipIndex.groupsOf(userIds.get(599))).containsExactly(groupIds.stream().mapToLong(Long::longValue).toArray());
+		assertThat(counterReconciler.reconcile()).isZero();
+	}
+
+	@Test
+	void deleteRemovesUsersWithTheirRowsCountersAndIndexEntries() {
+		List<Long> groupIds = createGroups(2);
+		List<Long> userIds = importUsers(5, 2, groupIds).stream().map(SocialUser::getId).toList();
+		List<Long> deleted = userIds.subList(0, 4);
+		List<Long> request = new ArrayList<>(deleted);
+		// Unknown ids are ignored
+		request.add(Long.MAX_VALUE);
+
+		DeleteResult result = socialService.deleteUsers(request);
+
+		assertThat(result).isEqualTo(new DeleteResult(4, 4, 8, 8));
+		Map<String, List<Long>> ids = Map.of("userIds", deleted);
+		assertThat(countWhere("social_user", "id in (:userIds)", ids)).isZero();
+		assertThat(countWhere("social_profile", "social_user in (:userIds)", ids)).isZero();
+		assertThat(countWhere("post", "user_id in (:userIds)", ids)).isZero();
+		assertThat(countWhere("user_group", "user_id in (:userIds)", ids)).isZero();
+		for (Long groupId : groupIds) {
+			assertThat(groupService.countMembers(groupId)).isEqualTo(1);
+			assertThat(membershipIndex.membersOf(groupId)).containsExactly(userIds.get(4));
+		}
+		assertThat(membershipIndex.groupsOf(deleted.get(0))).isEmpty();
+		assertThat(counterReconciler.reconcile()).isZero();
+	}
+
+	private List<Long> createGroups(int count) {
+		List<Long> groupIds = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			groupIds.add(groupService.createGroup().getId());
+		}
+		return groupIds;
+	}
+
+	private long countWhere(String table, String condition, Map<String, ?> parameters) {
+		return namedParameterJdbcTemplate.queryForObject("select count(*) from " + table + " where " + condition, parameters, Long.class);
+	}
+
+	private List<SocialUser> importUsers(int count, int postsPerUser, List<Long> groupIds) {
+		List<SocialUser> users = newUsers(count, postsPerUser, groupIds);
+		socialService.importUsers(users);
+		return users;
+	}
+
+	// Every user with a profile, postsPerUser posts and all the groups
+	private static List<SocialUser> newUsers(int count, int postsPerUser, List<Long> groupIds) {
+		List<SocialUser> users = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			SocialUser user = new SocialUser();
+			SocialProfile profile = new SocialProfile();
+			profile.setDescription("user " + i);
+			user.setSocialProfile(profile);
+			for (int p = 0; p < postsPerUser; p++) {
+				user.getPosts().add(new Post());
+			}
+			for (Long groupId : groupIds) {
+				SocialGroup group = new SocialGroup();
+				group.setId(groupId);
+				user.getGroups().add(group);
+			}
+			users.add(user);
+		}
+		return users;
+	}
+}